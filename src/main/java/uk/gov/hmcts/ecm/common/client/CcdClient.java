@@ -9,6 +9,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.hmcts.ecm.common.exceptions.CaseRetrievalException;
 import uk.gov.hmcts.ecm.common.helpers.ESHelper;
 import uk.gov.hmcts.ecm.common.model.bulk.BulkCaseSearchResult;
 import uk.gov.hmcts.ecm.common.model.bulk.BulkData;
@@ -27,6 +28,7 @@ import uk.gov.hmcts.ecm.common.model.multiples.MultipleCaseSearchResult;
 import uk.gov.hmcts.ecm.common.model.multiples.MultipleData;
 import uk.gov.hmcts.ecm.common.model.multiples.SubmitMultipleEvent;
 import uk.gov.hmcts.ecm.common.model.reference.ReferenceSubmitEvent;
+import uk.gov.hmcts.ecm.common.model.reports.aggregations.ReportAggregationSearchResult;
 import uk.gov.hmcts.ecm.common.model.reports.casesawaitingjudgment.CasesAwaitingJudgmentSearchResult;
 import uk.gov.hmcts.ecm.common.model.reports.casesawaitingjudgment.CasesAwaitingJudgmentSubmitEvent;
 import uk.gov.hmcts.ecm.common.model.reports.claimsbyhearingvenue.ClaimsByHearingVenueSearchResult;
@@ -48,8 +50,14 @@ import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -57,6 +65,7 @@ import static uk.gov.hmcts.ecm.common.model.helper.Constants.ALL_VENUES;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.ET_ENGLAND_AND_WALES;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.ET_SCOTLAND;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.MANUALLY_CREATED_POSITION;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.MAX_ES_SIZE;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.OLD_DATE_TIME_PATTERN;
 
 @Slf4j
@@ -67,6 +76,8 @@ public class CcdClient {
     private transient CcdClientConfig ccdClientConfig;
     private transient CaseDataBuilder caseDataBuilder;
     private transient AuthTokenGenerator authTokenGenerator;
+    private transient RequestCoalescer requestCoalescer;
+    private transient ReportSearchCache reportSearchCache;
 
     private static final String SERVICE_AUTHORIZATION = "ServiceAuthorization";
 
@@ -74,6 +85,7 @@ public class CcdClient {
     private static final String UPDATE_EVENT_SUMMARY = "Case updated by bulk";
     static final String UPDATE_BULK_EVENT_SUMMARY = "Bulk case updated by bulk";
     private static final int MAX_RETRIES = 7;
+    private static final int REPORT_PARTITION_TARGET_SIZE = MAX_ES_SIZE / 2;
 
     public CcdClient(RestTemplate restTemplate, UserService userService, CaseDataBuilder caseDataBuilder,
                      CcdClientConfig ccdClientConfig, AuthTokenGenerator authTokenGenerator) {
@@ -84,6 +96,22 @@ public class CcdClient {
         this.caseDataBuilder = caseDataBuilder;
     }
 
+    /**
+     * Opts in to sharing one in-flight request between identical concurrent runElasticSearch and retrieveCase calls
+     * made with the same auth token. Callers then receive the same result instance.
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Opts in to caching the results of the report searches, e.g. casesAwaitingJudgmentSearch. Results are cached
+     * per auth token.
+     */
+    public void setReportSearchCache(ReportSearchCache reportSearchCache) {
+        this.reportSearchCache = reportSearchCache;
+    }
+
     public CCDRequest startCaseCreation(String authToken, CaseDetails caseDetails) throws IOException {
         HttpEntity<String> request =
                 new HttpEntity<>(buildHeaders(authToken));
@@ -190,6 +218,15 @@ public class CcdClient {
 
     public SubmitEvent retrieveCase(String authToken, String caseTypeId, String jurisdiction, String cid)
             throws IOException {
+        if (requestCoalescer != null) {
+            return requestCoalescer.execute("retrieveCase:" + jurisdiction, caseTypeId, cid, authToken,
+                    () -> doRetrieveCase(authToken, caseTypeId, jurisdiction, cid));
+        }
+        return doRetrieveCase(authToken, caseTypeId, jurisdiction, cid);
+    }
+
+    private SubmitEvent doRetrieveCase(String authToken, String caseTypeId, String jurisdiction, String cid)
+            throws IOException {
         HttpEntity<CCDRequest> request =
                 new HttpEntity<>(buildHeaders(authToken));
         String uri = ccdClientConfig.buildRetrieveCaseUrl(userService.getUserDetails(authToken).getUid(), jurisdiction,
@@ -246,7 +283,7 @@ public class CcdClient {
     public List<CasesAwaitingJudgmentSubmitEvent> casesAwaitingJudgmentSearch(String authToken, String caseTypeId,
                                                                               String query) throws IOException {
         var submitEvents = new ArrayList<CasesAwaitingJudgmentSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query, CasesAwaitingJudgmentSearchResult.class);
+        var searchResult = runReportSearch(authToken, caseTypeId, query, CasesAwaitingJudgmentSearchResult.class);
 
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -258,7 +295,7 @@ public class CcdClient {
     public List<HearingsToJudgmentsSubmitEvent> hearingsToJudgementsSearch(String authToken, String caseTypeId,
                                                                            String query) throws IOException {
         var submitEvents = new ArrayList<HearingsToJudgmentsSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query, HearingsToJudgmentsSearchResult.class);
+        var searchResult = runReportSearch(authToken, caseTypeId, query, HearingsToJudgmentsSearchResult.class);
 
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -270,7 +307,7 @@ public class CcdClient {
     public List<RespondentsReportSubmitEvent> respondentsReportSearch(String authToken, String caseTypeId,
                                                                          String query) throws IOException {
         var submitEvents = new ArrayList<RespondentsReportSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query,
+        var searchResult = runReportSearch(authToken, caseTypeId, query,
                 RespondentsReportSearchResult.class);
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -282,7 +319,7 @@ public class CcdClient {
     public List<SessionDaysSubmitEvent> sessionDaysSearch(String authToken, String caseTypeId,
                                                                       String query) throws IOException {
         var submitEvents = new ArrayList<SessionDaysSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query,
+        var searchResult = runReportSearch(authToken, caseTypeId, query,
                 SessionDaysSearchResult.class);
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -294,7 +331,7 @@ public class CcdClient {
     public List<ClaimsByHearingVenueSubmitEvent> claimsByHearingVenueSearch(String authToken, String caseTypeId,
                                                                             String query) throws IOException {
         var submitEvents = new ArrayList<ClaimsByHearingVenueSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query,
+        var searchResult = runReportSearch(authToken, caseTypeId, query,
             ClaimsByHearingVenueSearchResult.class);
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -306,7 +343,7 @@ public class CcdClient {
     public List<EccReportSubmitEvent> eccReportSearch(String authToken, String caseTypeId,
                                                                       String query) throws IOException {
         var submitEvents = new ArrayList<EccReportSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query,
+        var searchResult = runReportSearch(authToken, caseTypeId, query,
                 EccReportSearchResult.class);
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -318,7 +355,7 @@ public class CcdClient {
     public List<HearingsByHearingTypeSubmitEvent> hearingsByHearingTypeSearch(String authToken, String caseTypeId,
                                                                               String query) throws IOException {
         var submitEvents = new ArrayList<HearingsByHearingTypeSubmitEvent>();
-        var searchResult = runElasticSearch(authToken, caseTypeId, query,
+        var searchResult = runReportSearch(authToken, caseTypeId, query,
                 HearingsByHearingTypeSearchResult.class);
         if (searchResult != null && !CollectionUtils.isEmpty(searchResult.getCases())) {
             submitEvents.addAll(searchResult.getCases());
@@ -327,8 +364,51 @@ public class CcdClient {
         return submitEvents;
     }
 
+    /**
+     * Runs an aggregation query through the CCD search endpoint. Fails if a response comes back without the
+     * aggregations, so that a proxy dropping them is not mistaken for empty buckets.
+     */
+    public ReportAggregationSearchResult reportAggregationSearch(String authToken, String caseTypeId,
+                                                                 String query) throws IOException {
+        var searchResult = runReportSearch(authToken, caseTypeId, query, ReportAggregationSearchResult.class);
+        if (searchResult == null) {
+            return new ReportAggregationSearchResult();
+        }
+        if (searchResult.getAggregations() == null) {
+            throw new CaseRetrievalException("Elastic search response for " + caseTypeId + " has no aggregations");
+        }
+        return searchResult;
+    }
+
+    /**
+     * Returns the number of cases matching the query without retrieving them.
+     */
+    public long countElasticSearch(String authToken, String caseTypeId, String query) throws IOException {
+        var searchResult = runElasticSearch(authToken, caseTypeId, ESHelper.getCountQuery(query),
+                CaseSearchResult.class);
+        return searchResult != null && searchResult.getTotal() != null ? searchResult.getTotal() : 0;
+    }
+
+    private <T> T runReportSearch(String authToken, String caseTypeId, String query, Class<T> searchResultTypeClass)
+            throws IOException {
+        if (reportSearchCache != null) {
+            return reportSearchCache.get(caseTypeId, query, searchResultTypeClass, authToken,
+                    () -> runElasticSearch(authToken, caseTypeId, query, searchResultTypeClass));
+        }
+        return runElasticSearch(authToken, caseTypeId, query, searchResultTypeClass);
+    }
+
     public <T> T runElasticSearch(String authToken, String caseTypeId, String query, Class<T> searchResultTypeClass)
             throws IOException {
+        if (requestCoalescer != null) {
+            return requestCoalescer.execute("runElasticSearch:" + searchResultTypeClass.getName(), caseTypeId, query,
+                    authToken, () -> doRunElasticSearch(authToken, caseTypeId, query, searchResultTypeClass));
+        }
+        return doRunElasticSearch(authToken, caseTypeId, query, searchResultTypeClass);
+    }
+
+    private <T> T doRunElasticSearch(String authToken, String caseTypeId, String query,
+                                     Class<T> searchResultTypeClass) throws IOException {
         var request = new HttpEntity<>(query, buildHeaders(authToken));
         var url = ccdClientConfig.buildRetrieveCasesUrlElasticSearch(caseTypeId);
 
@@ -405,6 +485,34 @@ public class CcdClient {
                 getListingQuery(dateToSearchFrom, dateToSearchTo, venueToSearch, venueToSearchMapping));
     }
 
+    /**
+     * Runs one listing search per venue mapping field (e.g. the Glasgow, Aberdeen, Dundee and Edinburgh venue
+     * fields) concurrently on the given executor and merges the results by case id.
+     * @param venuesToSearch venue to search keyed by its venue mapping field name
+     */
+    public List<SubmitEvent> retrieveCasesVenuesAndDateElasticSearch(String authToken, String caseTypeId,
+                                                                     String dateToSearchFrom, String dateToSearchTo,
+                                                                     Map<String, String> venuesToSearch,
+                                                                     Executor executor) throws IOException {
+        if (venuesToSearch.containsValue(ALL_VENUES)) {
+            return buildAndGetElasticSearchRequest(authToken, caseTypeId,
+                    ESHelper.getListingRangeDateSearchQuery(dateToSearchFrom, dateToSearchTo));
+        }
+
+        List<CompletableFuture<List<SubmitEvent>>> searches = venuesToSearch.entrySet().stream()
+                .map(venue -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return buildAndGetElasticSearchRequest(authToken, caseTypeId,
+                                getListingQuery(dateToSearchFrom, dateToSearchTo, venue.getValue(), venue.getKey()));
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+
+        return mergeByCaseId(joinSearches(searches));
+    }
+
     public List<SubmitEvent> retrieveCasesGenericReportElasticSearch(String authToken, String caseTypeId,
                                                                      String dateToSearchFrom, String dateToSearchTo,
                                                                     String reportType) throws IOException {
@@ -424,6 +532,108 @@ public class CcdClient {
         }
     }
 
+    /**
+     * Same results as retrieveCasesGenericReportElasticSearch, but the date window is split into sub-ranges sized
+     * from count probes so that no single search reaches the ES size cap. A single day with more cases than the cap
+     * is paged through with search_after on the case reference. The sub-ranges are searched concurrently on the given
+     * executor and the results are merged by case id.
+     */
+    public List<SubmitEvent> retrieveCasesGenericReportElasticSearchPartitioned(String authToken, String caseTypeId,
+                                                                                String dateToSearchFrom,
+                                                                                String dateToSearchTo,
+                                                                                String reportType,
+                                                                                Executor executor)
+            throws IOException {
+        List<ReportDatePartition> partitions = new ArrayList<>();
+        partitionReportDateRange(authToken, caseTypeId, reportType,
+                new ReportDateRange(LocalDate.parse(dateToSearchFrom), LocalDate.parse(dateToSearchTo)), partitions);
+        log.info(reportType + " - " + dateToSearchFrom + " - " + dateToSearchTo + " split into "
+                + partitions.size() + " date ranges");
+
+        List<CompletableFuture<List<SubmitEvent>>> searches = partitions.stream()
+                .map(partition -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return searchReportDatePartition(authToken, caseTypeId, reportType, partition);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+
+        return mergeByCaseId(joinSearches(searches));
+    }
+
+    private void partitionReportDateRange(String authToken, String caseTypeId, String reportType,
+                                          ReportDateRange range, List<ReportDatePartition> partitions)
+            throws IOException {
+        long total = countReportDateRange(authToken, caseTypeId, reportType, range);
+        long days = range.days();
+        if (total <= REPORT_PARTITION_TARGET_SIZE || days == 1) {
+            if (total > 0) {
+                partitions.add(new ReportDatePartition(range, total));
+            }
+            return;
+        }
+
+        long slices = Math.min(days, (total + REPORT_PARTITION_TARGET_SIZE - 1) / REPORT_PARTITION_TARGET_SIZE);
+        long daysPerSlice = (days + slices - 1) / slices;
+        for (LocalDate from = range.from(); !from.isAfter(range.to()); from = from.plusDays(daysPerSlice)) {
+            LocalDate to = from.plusDays(daysPerSlice - 1);
+            partitionReportDateRange(authToken, caseTypeId, reportType,
+                    new ReportDateRange(from, to.isAfter(range.to()) ? range.to() : to), partitions);
+        }
+    }
+
+    private List<SubmitEvent> searchReportDatePartition(String authToken, String caseTypeId, String reportType,
+                                                        ReportDatePartition partition) throws IOException {
+        ReportDateRange range = partition.range();
+        String query = getReportRangeDateQuery(range.start(), range.end(), reportType);
+        if (partition.total() <= MAX_ES_SIZE) {
+            return buildAndGetElasticSearchRequest(authToken, caseTypeId, query);
+        }
+        log.info(reportType + " - " + range.start() + " - " + range.end() + " has " + partition.total()
+                + " cases, searching in pages of " + MAX_ES_SIZE);
+        List<SubmitEvent> submitEvents = new ArrayList<>();
+        List<SubmitEvent> page = buildAndGetElasticSearchRequest(authToken, caseTypeId,
+                ESHelper.getSearchAfterQuery(query, null));
+        submitEvents.addAll(page);
+        while (page.size() >= MAX_ES_SIZE) {
+            long lastCaseId = page.get(page.size() - 1).getCaseId();
+            page = buildAndGetElasticSearchRequest(authToken, caseTypeId,
+                    ESHelper.getSearchAfterQuery(query, lastCaseId));
+            submitEvents.addAll(page);
+        }
+        return submitEvents;
+    }
+
+    private long countReportDateRange(String authToken, String caseTypeId, String reportType, ReportDateRange range)
+            throws IOException {
+        return countElasticSearch(authToken, caseTypeId,
+                ESHelper.getReportRangeDateCountQuery(range.start(), range.end(), reportType));
+    }
+
+    private static <T> List<T> joinSearches(List<CompletableFuture<List<T>>> searches) throws IOException {
+        try {
+            CompletableFuture.allOf(searches.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new CaseRetrievalException("Elastic search failed", e.getCause());
+        }
+        List<T> results = new ArrayList<>();
+        searches.forEach(search -> results.addAll(search.join()));
+        return results;
+    }
+
+    private static List<SubmitEvent> mergeByCaseId(List<SubmitEvent> submitEvents) {
+        Map<Long, SubmitEvent> merged = new LinkedHashMap<>();
+        for (SubmitEvent submitEvent : submitEvents) {
+            merged.putIfAbsent(submitEvent.getCaseId(), submitEvent);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
     private String getReportRangeDateQuery(String from, String to, String reportType) {
         log.info("REPORT QUERY DATE: " + ESHelper.getReportRangeDateSearchQuery(from, to, reportType));
         return ESHelper.getReportRangeDateSearchQuery(from, to, reportType);
@@ -472,60 +682,48 @@ public class CcdClient {
                                                                                          String caseTypeId,
                                                                                          String query)
             throws IOException {
+        waitForElasticSearchTotal(authToken, caseTypeId, query, 1);
         HttpEntity<String> request = new HttpEntity<>(query, buildHeaders(authToken));
         String url = ccdClientConfig.buildRetrieveCasesUrlElasticSearch(caseTypeId);
-        MultipleCaseSearchResult multipleCaseSearchResult;
-        int retries = 1;
-        do {
-            log.info("Retry: " + retries);
-            multipleCaseSearchResult = restTemplate.exchange(url, HttpMethod.POST, request,
-                    MultipleCaseSearchResult.class).getBody();
-            try {
-                if (multipleCaseSearchResult != null) {
-                    log.info("Checking size found: " + multipleCaseSearchResult.getTotal());
-                }
-                TimeUnit.SECONDS.sleep(5);
-                retries++;
-                if (retries == MAX_RETRIES) {
-                    break;
-                }
-            } catch (InterruptedException e) {
-                log.error("Error sleeping the thread");
-                Thread.currentThread().interrupt();
-            }
-        } while (multipleCaseSearchResult == null || multipleCaseSearchResult.getTotal() != 1);
-
+        MultipleCaseSearchResult multipleCaseSearchResult = restTemplate.exchange(url, HttpMethod.POST, request,
+                MultipleCaseSearchResult.class).getBody();
         return multipleCaseSearchResult != null
                 ? new ArrayList<>(multipleCaseSearchResult.getCases())
                 : new ArrayList<>();
 
     }
 
-    private List<SubmitEvent> buildAndGetElasticSearchRequestWithRetries(String authToken, String caseTypeId,
-                                                                         String query, int size, List<String> caseIds)
+    /**
+     * Polls the count of the query until it reaches the expected total, giving up after MAX_RETRIES attempts.
+     */
+    private void waitForElasticSearchTotal(String authToken, String caseTypeId, String query, long expectedTotal)
             throws IOException {
-        HttpEntity<String> request = new HttpEntity<>(query, buildHeaders(authToken));
-        String url = ccdClientConfig.buildRetrieveCasesUrlElasticSearch(caseTypeId);
-        CaseSearchResult caseSearchResult;
         int retries = 1;
-        do {
-            log.info("Retry: " + retries);
-            caseSearchResult = restTemplate.exchange(url, HttpMethod.POST, request, CaseSearchResult.class).getBody();
+        long total = countElasticSearch(authToken, caseTypeId, query);
+        log.info("Checking size found: " + total);
+        while (total != expectedTotal && retries < MAX_RETRIES - 1) {
             try {
-                if (caseSearchResult != null) {
-                    log.info("Checking size found: " + caseSearchResult.getTotal());
-                }
                 TimeUnit.SECONDS.sleep(5);
-                retries++;
-                if (retries == MAX_RETRIES) {
-                    break;
-                }
             } catch (InterruptedException e) {
                 log.error("Error sleeping the thread");
                 Thread.currentThread().interrupt();
+                return;
             }
-        } while (caseSearchResult == null || caseSearchResult.getTotal() != size);
+            retries++;
+            log.info("Retry: " + retries);
+            total = countElasticSearch(authToken, caseTypeId, query);
+            log.info("Checking size found: " + total);
+        }
+    }
 
+    private List<SubmitEvent> buildAndGetElasticSearchRequestWithRetries(String authToken, String caseTypeId,
+                                                                         String query, int size, List<String> caseIds)
+            throws IOException {
+        waitForElasticSearchTotal(authToken, caseTypeId, query, size);
+        HttpEntity<String> request = new HttpEntity<>(query, buildHeaders(authToken));
+        String url = ccdClientConfig.buildRetrieveCasesUrlElasticSearch(caseTypeId);
+        CaseSearchResult caseSearchResult = restTemplate.exchange(url, HttpMethod.POST, request,
+                CaseSearchResult.class).getBody();
         if (caseSearchResult != null) {
             generateCasesNotFound(caseIds, caseSearchResult);
         }
@@ -776,4 +974,22 @@ public class CcdClient {
         return headers;
     }
 
+    private record ReportDateRange(LocalDate from, LocalDate to) {
+
+        String start() {
+            return from.atStartOfDay().format(OLD_DATE_TIME_PATTERN);
+        }
+
+        String end() {
+            return to.atStartOfDay().plusDays(1).minusSeconds(1).format(OLD_DATE_TIME_PATTERN);
+        }
+
+        long days() {
+            return ChronoUnit.DAYS.between(from, to) + 1;
+        }
+    }
+
+    private record ReportDatePartition(ReportDateRange range, long total) {
+    }
+
 }
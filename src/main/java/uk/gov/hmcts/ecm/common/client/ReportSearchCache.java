@@ -0,0 +1,188 @@
+package uk.gov.hmcts.ecm.common.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-to-live cache of report search results keyed by user scope, case type, result type and a fingerprint of the
+ * query JSON. The user scope, e.g. the auth token, is hashed, so a user is only served results of searches made
+ * under the same scope. The fingerprint ignores whitespace and object key order. Each result is cached as a
+ * snapshot and every hit returns a new copy of it, so callers may change what they get. Entries are evicted least
+ * recently used first once the estimated size of the cached results, their number of cases times the average case
+ * size, goes over the configured limit.
+ */
+@Slf4j
+public class ReportSearchCache {
+
+    private static final long DEFAULT_AVERAGE_CASE_SIZE_IN_BYTES = 4 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<Class<?>, Duration> ttls = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxSizeInBytes;
+    private final Duration defaultTtl;
+    private long averageCaseSizeInBytes = DEFAULT_AVERAGE_CASE_SIZE_IN_BYTES;
+    private long sizeInBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ReportSearchCache(long maxSizeInBytes, Duration defaultTtl) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * Overrides the time to live of results of the given search result type, e.g. SessionDaysSearchResult.
+     */
+    public ReportSearchCache withTtl(Class<?> searchResultType, Duration ttl) {
+        ttls.put(searchResultType, ttl);
+        return this;
+    }
+
+    /**
+     * Sets the size used for each case in a result when estimating the size of the cache.
+     */
+    public ReportSearchCache withAverageCaseSize(long averageCaseSizeInBytes) {
+        this.averageCaseSizeInBytes = averageCaseSizeInBytes;
+        return this;
+    }
+
+    public <T> T get(String caseTypeId, String query, Class<T> searchResultType, String userScope,
+                     RequestCoalescer.Request<T> search) throws IOException {
+        Duration ttl = ttls.getOrDefault(searchResultType, defaultTtl);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return search.execute();
+        }
+
+        Key key = new Key(fingerprint(userScope), caseTypeId, searchResultType, fingerprint(normalize(query)));
+        JsonNode cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return objectMapper.treeToValue(cached, searchResultType);
+        }
+        misses.increment();
+
+        T result = search.execute();
+        if (result != null) {
+            JsonNode snapshot = objectMapper.valueToTree(result);
+            store(key, new Entry(snapshot, System.nanoTime() + ttl.toNanos(), estimateSize(snapshot)));
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeInBytes = 0;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private synchronized JsonNode lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(key);
+            sizeInBytes -= entry.sizeInBytes();
+            return null;
+        }
+        return entry.value();
+    }
+
+    private synchronized void store(Key key, Entry entry) {
+        if (entry.sizeInBytes() > maxSizeInBytes) {
+            log.info("Report search result of " + entry.sizeInBytes() + " bytes is too large to cache");
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            sizeInBytes -= previous.sizeInBytes();
+        }
+        sizeInBytes += entry.sizeInBytes();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (sizeInBytes > maxSizeInBytes) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            sizeInBytes -= eldest.sizeInBytes();
+            evictions.increment();
+        }
+    }
+
+    private byte[] normalize(String query) {
+        try {
+            return objectMapper.writeValueAsBytes(objectMapper.readValue(query, Object.class));
+        } catch (JsonProcessingException e) {
+            return query.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String fingerprint(String value) {
+        return fingerprint(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String fingerprint(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A result counts as one case per element of its cases array, and as a single case if it has none, e.g. an
+     * aggregation result.
+     */
+    private long estimateSize(JsonNode snapshot) {
+        JsonNode cases = snapshot.get("cases");
+        int caseCount = cases != null && cases.isArray() ? cases.size() : 1;
+        return Math.max(caseCount, 1) * averageCaseSizeInBytes;
+    }
+
+    private record Key(String userScopeFingerprint, String caseTypeId, Class<?> searchResultType,
+                       String queryFingerprint) {
+    }
+
+    private record Entry(JsonNode value, long expiresAt, long sizeInBytes) {
+    }
+
+}
@@ -0,0 +1,71 @@
+package uk.gov.hmcts.ecm.common.client;
+
+import uk.gov.hmcts.ecm.common.exceptions.CaseRetrievalException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight coalescing of identical concurrent reads. While a request for a key is in flight, callers with the
+ * same key wait for it and receive the same result (or exception) instead of sending their own request. Nothing is
+ * cached once the request completes.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Request<T> {
+        T execute() throws IOException;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String caseTypeId, String target, String userScope, Request<T> request)
+            throws IOException {
+        Key key = new Key(operation, caseTypeId, target, userScope);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        try {
+            T result = request.execute();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static Object await(CompletableFuture<Object> call) throws IOException {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CaseRetrievalException("Coalesced request failed", cause);
+        }
+    }
+
+    private record Key(String operation, String caseTypeId, String target, String userScope) {
+    }
+
+}
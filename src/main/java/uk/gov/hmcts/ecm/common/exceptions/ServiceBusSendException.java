@@ -0,0 +1,21 @@
+package uk.gov.hmcts.ecm.common.exceptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ServiceBusSendException extends RuntimeException {
+
+    private static final long serialVersionUID = 4619275084230865127L;
+
+    private final List<String> failedMsgIds;
+
+    public ServiceBusSendException(String message, List<String> failedMsgIds, Throwable cause) {
+        super(message, cause);
+        this.failedMsgIds = Collections.unmodifiableList(new ArrayList<>(failedMsgIds));
+    }
+
+    public List<String> getFailedMsgIds() {
+        return failedMsgIds;
+    }
+}
@@ -1,31 +1,125 @@
 package uk.gov.hmcts.ecm.common.helpers;
 
+import com.google.common.base.Strings;
 import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesDto;
 import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesMsg;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.DataModelParent;
+import uk.gov.hmcts.ecm.common.servicebus.MessageCodec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class CreateUpdatesHelper {
 
+    private static final char MSG_ID_SEPARATOR = '\u0000';
+
     public static List<CreateUpdatesMsg> getCreateUpdatesMessagesCollection(CreateUpdatesDto createUpdatesDto,
                                                                             DataModelParent dataModelParent,
                                                                             int chunkSize,
                                                                             String updateSize) {
 
-        return Partition.ofSize(createUpdatesDto.getEthosCaseRefCollection(), chunkSize).stream()
-            .map(ethosCasesChunked -> createUpdatesMsg(ethosCasesChunked, createUpdatesDto, dataModelParent, updateSize))
+        Partition<String> chunks = Partition.ofSize(createUpdatesDto.getEthosCaseRefCollection(), chunkSize);
+        return IntStream.range(0, chunks.size())
+            .mapToObj(chunkIndex -> createUpdatesMsg(chunks.get(chunkIndex), createUpdatesDto, dataModelParent,
+                    updateSize, getMsgId(createUpdatesDto.getOperationId(), chunkIndex)))
             .collect(Collectors.toList());
     }
 
+    /**
+     * Packs up to chunkSize ethos case references (e.g. CHUNK_MESSAGE_SIZE) into each message, fewer if the message
+     * encoded with messageCodec would exceed maxMessageBytes (e.g. CHUNK_MESSAGE_BYTES). The count keeps messages
+     * small enough to spread over consumers and to retry cheaply, while the byte limit keeps a message with a large
+     * data model under the Service Bus size limit.
+     */
+    public static List<CreateUpdatesMsg> getCreateUpdatesMessagesCollectionBySize(CreateUpdatesDto createUpdatesDto,
+                                                                                  DataModelParent dataModelParent,
+                                                                                  int chunkSize,
+                                                                                  int maxMessageBytes,
+                                                                                  String updateSize,
+                                                                                  MessageCodec messageCodec) {
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        List<String> ethosCaseRefCollection = createUpdatesDto.getEthosCaseRefCollection();
+        String operationId = createUpdatesDto.getOperationId();
+        long emptyMessageBytes = messageCodec.encode(createUpdatesMsg(Collections.emptyList(), createUpdatesDto,
+                dataModelParent, updateSize, getMsgId(operationId, 0))).length;
+        List<CreateUpdatesMsg> createUpdatesMsgs = new ArrayList<>();
+        int start = 0;
+        long messageBytes = emptyMessageBytes;
+        for (int i = 0; i < ethosCaseRefCollection.size(); i++) {
+            long referenceBytes = estimateSize(ethosCaseRefCollection.get(i));
+            if (i > start && (i - start >= chunkSize || messageBytes + referenceBytes > maxMessageBytes)) {
+                addChunk(createUpdatesMsgs, ethosCaseRefCollection.subList(start, i), createUpdatesDto,
+                        dataModelParent, updateSize);
+                start = i;
+                messageBytes = emptyMessageBytes;
+            }
+            messageBytes += referenceBytes;
+        }
+        if (start < ethosCaseRefCollection.size()) {
+            addChunk(createUpdatesMsgs, ethosCaseRefCollection.subList(start, ethosCaseRefCollection.size()),
+                    createUpdatesDto, dataModelParent, updateSize);
+        }
+        return createUpdatesMsgs;
+    }
+
+    private static void addChunk(List<CreateUpdatesMsg> createUpdatesMsgs, List<String> ethosCaseRefs,
+                                 CreateUpdatesDto createUpdatesDto, DataModelParent dataModelParent,
+                                 String updateSize) {
+        createUpdatesMsgs.add(createUpdatesMsg(new ArrayList<>(ethosCaseRefs), createUpdatesDto, dataModelParent,
+                updateSize, getMsgId(createUpdatesDto.getOperationId(), createUpdatesMsgs.size())));
+    }
+
+    /**
+     * Message id derived from the caller's operation id and the chunk index. A retried send of the same operation
+     * produces the same ids, so the queue's duplicate detection drops the re-sent messages, while every new
+     * operation gets new ids even when it repeats an earlier update. Without an operation id the id is random.
+     */
+    public static String getMsgId(String operationId, int chunkIndex) {
+        if (Strings.isNullOrEmpty(operationId)) {
+            return UUID.randomUUID().toString();
+        }
+        String name = operationId + MSG_ID_SEPARATOR + chunkIndex;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Size of a reference as a JSON array element: UTF-8 bytes, escapes, quotes and separating comma. This is also
+     * an upper bound for the binary formats, which store a short string as a length header and its UTF-8 bytes.
+     */
+    private static long estimateSize(String ethosCaseReference) {
+        long bytes = 3;
+        for (int i = 0; i < ethosCaseReference.length(); i++) {
+            char c = ethosCaseReference.charAt(i);
+            if (c == '"' || c == '\\') {
+                bytes += 2;
+            } else if (c < 0x20) {
+                bytes += 6;
+            } else if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
     private static CreateUpdatesMsg createUpdatesMsg(List<String> ethosCasesChunked,
                                                      CreateUpdatesDto createUpdatesDto,
                                                      DataModelParent dataModelParent,
-                                                     String updateSize) {
+                                                     String updateSize,
+                                                     String msgId) {
 
         return CreateUpdatesMsg.builder()
-                .msgId(UUID.randomUUID().toString())
+                .msgId(msgId)
                 .jurisdiction(createUpdatesDto.getJurisdiction())
                 .caseTypeId(createUpdatesDto.getCaseTypeId())
                 .multipleRef(createUpdatesDto.getMultipleRef())
@@ -1,17 +1,20 @@
 package uk.gov.hmcts.ecm.common.helpers;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
-import org.elasticsearch.index.query.BoolQueryBuilder;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.index.query.RangeQueryBuilder;
-import org.elasticsearch.index.query.TermsQueryBuilder;
-import org.elasticsearch.search.builder.SearchSourceBuilder;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
-import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.*;
 
 @Slf4j
@@ -38,151 +41,354 @@ public class ESHelper {
     public static final String MEMBER_DAYS_DATE_FIELD_NAME =
         "data.hearingCollection.value.hearingDateCollection.value.listedDate";
     private static final String REPORT_TYPE_NOT_FOUND = "Report type not found";
+    private static final String CASE_DATA_SOURCE_PREFIX = "data.";
+    private static final String STATE_KEYWORD = "state.keyword";
+    private static final String QUERY = "query";
+    private static final String BOOL = "bool";
+    private static final String FILTER = "filter";
+    private static final String VALUE = "value";
+    private static final String SOURCE = "_source";
+    private static final String BOOST = "boost";
+    private static final String AGGREGATIONS = "aggs";
+    private static final String FIELD = "field";
+    private static final int AGGREGATION_BUCKET_SIZE = 500;
+    public static final String CASE_TYPE_FIELD_NAME = "data.caseType.keyword";
+    public static final String GROUP_BY_AGGREGATION = "group_by";
+    public static final String PER_DAY_AGGREGATION = "per_day";
+    public static final String NESTED_AGGREGATION = "nested";
+    private static final String TRACK_TOTAL_HITS = "track_total_hits";
+    private static final String SORT = "sort";
+    private static final String SEARCH_AFTER = "search_after";
+    private static final String REFERENCE_KEYWORD = "reference.keyword";
+    private static final Map<Class<?>, String[]> SOURCE_FIELDS_CACHE = new ConcurrentHashMap<>();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     private ESHelper() {
         // All access through static methods
     }
 
     public static String getSearchQuery(List<String> caseIds) {
-        TermsQueryBuilder termsQueryBuilder = termsQuery(ETHOS_CASE_REFERENCE_KEYWORD, caseIds);
-        return new SearchSourceBuilder()
-                .size(MAX_ES_SIZE)
-                //.fetchSource(new String[]{"data"}, null)
-                .query(termsQueryBuilder).toString();
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE);
+        writer.startObject(QUERY);
+        writeTermsQuery(writer, ETHOS_CASE_REFERENCE_KEYWORD, caseIds);
+        return writer.endObject().endObject().toString();
     }
 
     public static String getSearchQuerySchedule(List<String> caseIds) {
-        String cases = caseIds.stream()
-                .map(s -> "\"" + s + "\"")
-                .collect(Collectors.joining(","));
-
-        return String.format("{\"size\":%s,"
-                        + "\"query\":{\"terms\":{\"%s\":[%s],\"boost\":1.0}},"
-                        + "\"_source\":["
-                        + "\"data.claimantIndType.*\","
-                        + "\"data.claimantType.claimant_addressUK.*\","
-                        + "\"data.claimant_Company\","
-                        + "\"data.positionType\","
-                        + "\"data.ethosCaseReference\","
-                        + "\"data.respondentCollection.*\"]}",
-                MAX_ES_SIZE / 2, ETHOS_CASE_REFERENCE_KEYWORD, cases);
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE / 2);
+        writer.startObject(QUERY);
+        writeTermsQuery(writer, ETHOS_CASE_REFERENCE_KEYWORD, caseIds);
+        writer.endObject()
+                .array(SOURCE,
+                        "data.claimantIndType.*",
+                        "data.claimantType.claimant_addressUK.*",
+                        "data.claimant_Company",
+                        "data.positionType",
+                        "data.ethosCaseReference",
+                        "data.respondentCollection.*");
+        return writer.endObject().toString();
     }
 
     public static String getSearchQueryLabels(List<String> caseIds) {
-        String cases = caseIds.stream()
-                .map(s -> "\"" + s + "\"")
-                .collect(Collectors.joining(","));
-
-        return String.format("{\"size\":%s,"
-                        + "\"query\":{\"terms\":{\"%s\":[%s],\"boost\":1.0}},"
-                        + "\"_source\":["
-                        + "\"data.claimantIndType.*\","
-                        + "\"data.claimantType.*\","
-                        + "\"data.claimant_TypeOfClaimant\","
-                        + "\"data.claimant_Company\","
-                        + "\"data.representativeClaimantType.*\","
-                        + "\"data.claimantRepresentedQuestion\","
-                        + "\"data.respondentCollection.*\","
-                        + "\"data.repCollection.*\","
-                        + "\"data.ethosCaseReference\"]}",
-                MAX_ES_SIZE / 2, ETHOS_CASE_REFERENCE_KEYWORD, cases);
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE / 2);
+        writer.startObject(QUERY);
+        writeTermsQuery(writer, ETHOS_CASE_REFERENCE_KEYWORD, caseIds);
+        writer.endObject()
+                .array(SOURCE,
+                        "data.claimantIndType.*",
+                        "data.claimantType.*",
+                        "data.claimant_TypeOfClaimant",
+                        "data.claimant_Company",
+                        "data.representativeClaimantType.*",
+                        "data.claimantRepresentedQuestion",
+                        "data.respondentCollection.*",
+                        "data.repCollection.*",
+                        "data.ethosCaseReference");
+        return writer.endObject().toString();
     }
 
     public static String getTransferredCaseSearchQuery(String caseId) {
         //get source case using current case id - partial match with transferredCaseLink
-        return String.format("{\"size\":%s,"
-                        + "\"query\":{"
-                        + "\"bool\":{"
-                        + "\"must\":["
-                        + "{\"terms\": {"
-                        + "\"state.keyword\": [\"Accepted\", \"Rejected\", \"Submitted\", \"Closed\", \"Vetted\"]"
-                        + "}}," //terms end
-                        + "{\"exists\": {\"field\": \"data.linkedCaseCT\" }},"
-                        + "{\"wildcard\": {\"data.linkedCaseCT\": { \"value\": %s }}}"
-                        + "]," //must end
-                        + "\"must_not\": [{\"exists\": {\"field\": \"data.transferredCaseLink\"}}]" //must_not end
-                        + "}" //bool end
-                        + "}," //query end
-                        + "\"_source\":[\"reference\"],"
-                        + "\"terminate_after\":1"
-                        + "}",
-                MAX_ES_SIZE / 2, "\"" + caseId + "\"");
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE / 2);
+        writer.startObject(QUERY).startObject(BOOL).startArray("must");
+        writer.startObject();
+        writeTermsQuery(writer, STATE_KEYWORD, List.of("Accepted", "Rejected", "Submitted", "Closed", "Vetted"));
+        writer.endObject();
+        writer.startObject().startObject("exists").field(FIELD, "data.linkedCaseCT").endObject().endObject();
+        writer.startObject().startObject("wildcard").startObject("data.linkedCaseCT")
+                .field(VALUE, caseId)
+                .endObject().endObject().endObject();
+        writer.endArray()
+                .startArray("must_not")
+                .startObject().startObject("exists").field(FIELD, "data.transferredCaseLink").endObject().endObject()
+                .endArray();
+        writer.endObject().endObject()
+                .array(SOURCE, "reference")
+                .field("terminate_after", 1);
+        return writer.endObject().toString();
     }
 
     public static String getCasesWithDuplicateEthosRefSearchQuery(String ethosCaseReference) {
         //get cases that have duplicate ethosCaseReference that matches the current case ethosCaseReference
-        String formattedQuery = """
-        {
-          "size": %s,
-          "query": {
-            "bool": {
-              "must": [
-                {
-                  "terms": {
-                    "state.keyword": [
-                      "Transferred", "Accepted", "Rejected", "Submitted", "Closed", "Vetted"
-                    ]
-                  }
-                },
-                {
-                  "term": {
-                    "data.ethosCaseReference": {
-                      "value": "%s"
-                    }
-                  }
-                }
-              ]
-            }
-          },
-          "_source": [
-            "reference"
-          ],
-          "sort": [
-            {
-              "reference.keyword": {
-                "order": "asc"
-              }
-            }
-          ]
-        }
-        """;
-
-        return String.format(formattedQuery, MAX_ES_SIZE / 2, ethosCaseReference);
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE / 2);
+        writer.startObject(QUERY).startObject(BOOL).startArray("must");
+        writer.startObject();
+        writeTermsQuery(writer, STATE_KEYWORD,
+                List.of("Transferred", "Accepted", "Rejected", "Submitted", "Closed", "Vetted"));
+        writer.endObject();
+        writer.startObject().startObject("term").startObject("data.ethosCaseReference")
+                .field(VALUE, ethosCaseReference)
+                .endObject().endObject().endObject();
+        writer.endArray().endObject().endObject()
+                .array(SOURCE, "reference")
+                .startArray("sort")
+                .startObject().startObject("reference.keyword").field("order", "asc").endObject().endObject()
+                .endArray();
+        return writer.endObject().toString();
     }
 
     public static String getBulkSearchQuery(String multipleReference) {
-        TermsQueryBuilder termsQueryBuilder = termsQuery(MULTIPLE_CASE_REFERENCE_KEYWORD, multipleReference);
-        return new SearchSourceBuilder()
-                .size(MAX_ES_SIZE)
-                .query(termsQueryBuilder).toString();
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE);
+        writer.startObject(QUERY);
+        writeTermsQuery(writer, MULTIPLE_CASE_REFERENCE_KEYWORD, Collections.singletonList(multipleReference));
+        return writer.endObject().endObject().toString();
     }
 
     public static String getListingVenueAndRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo,
                                                                 String venueToSearch, String venueToSearchMapping) {
-        BoolQueryBuilder boolQueryBuilder = boolQuery()
-                .filter(QueryBuilders.termQuery(venueToSearchMapping, venueToSearch))
-                .filter(new RangeQueryBuilder(LISTING_DATE_FIELD_NAME).gte(dateToSearchFrom).lte(dateToSearchTo));
-        return new SearchSourceBuilder()
-                .size(MAX_ES_SIZE)
-                .query(boolQueryBuilder).toString();
+        return getListingVenueAndRangeDateSearchQuery(dateToSearchFrom, dateToSearchTo, venueToSearch,
+                venueToSearchMapping, null);
+    }
+
+    public static String getListingVenueAndRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                                String venueToSearch, String venueToSearchMapping,
+                                                                Class<?> caseDataClass) {
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE);
+        writer.startObject(QUERY).startObject(BOOL).startArray(FILTER);
+        writer.startObject().startObject("term").startObject(venueToSearchMapping)
+                .field(VALUE, venueToSearch)
+                .field(BOOST, 1.0)
+                .endObject().endObject().endObject();
+        writeRangeQuery(writer, LISTING_DATE_FIELD_NAME, dateToSearchFrom, dateToSearchTo);
+        endBoolQuery(writer.endArray());
+        writeSourceFields(writer, caseDataClass);
+        return writer.endObject().toString();
     }
 
     public static String getListingRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo) {
-        BoolQueryBuilder boolQueryBuilder = boolQuery()
-                .filter(new RangeQueryBuilder(LISTING_DATE_FIELD_NAME).gte(dateToSearchFrom).lte(dateToSearchTo));
-        return new SearchSourceBuilder()
-                .size(MAX_ES_SIZE)
-                .query(boolQueryBuilder).toString();
+        return getListingRangeDateSearchQuery(dateToSearchFrom, dateToSearchTo, null);
+    }
+
+    public static String getListingRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                        Class<?> caseDataClass) {
+        return getRangeDateSearchQuery(LISTING_DATE_FIELD_NAME, dateToSearchFrom, dateToSearchTo, caseDataClass);
     }
 
     public static String getReportRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo,
                                                        String reportType) {
-        String dateFieldName = getDateFieldName(reportType);
-        BoolQueryBuilder boolQueryBuilder = boolQuery()
-                .filter(new RangeQueryBuilder(dateFieldName).gte(dateToSearchFrom).lte(dateToSearchTo));
-        return new SearchSourceBuilder()
-                .size(MAX_ES_SIZE)
-                .query(boolQueryBuilder).toString();
+        return getReportRangeDateSearchQuery(dateToSearchFrom, dateToSearchTo, reportType, null);
+    }
+
+    public static String getReportRangeDateSearchQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                       String reportType, Class<?> caseDataClass) {
+        return getRangeDateSearchQuery(getDateFieldName(reportType), dateToSearchFrom, dateToSearchTo,
+                caseDataClass);
+    }
+
+    public static String getReportRangeDateCountQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                      String reportType) {
+        ESQueryWriter writer = startSearch(0).field(TRACK_TOTAL_HITS, true);
+        writer.startObject(QUERY).startObject(BOOL).startArray(FILTER);
+        writeRangeQuery(writer, getDateFieldName(reportType), dateToSearchFrom, dateToSearchTo);
+        endBoolQuery(writer.endArray());
+        return writer.endObject().toString();
+    }
+
+    /**
+     * Turns a search query into one that only counts its hits: size 0, exact total, no source, sort or aggregations.
+     */
+    public static String getCountQuery(String searchQuery) {
+        ObjectNode countQuery = parseQuery(searchQuery);
+        countQuery.put("size", 0);
+        countQuery.put(TRACK_TOTAL_HITS, true);
+        countQuery.remove(List.of(SOURCE, SORT, "from", AGGREGATIONS));
+        return countQuery.toString();
+    }
+
+    /**
+     * Turns a search query into one page of a search_after walk over its hits in case reference order, starting
+     * after the given case reference, or from the first hit when it is null.
+     */
+    public static String getSearchAfterQuery(String searchQuery, Long afterCaseReference) {
+        ObjectNode pageQuery = parseQuery(searchQuery);
+        pageQuery.remove("from");
+        pageQuery.putArray(SORT).addObject().put(REFERENCE_KEYWORD, "asc");
+        if (afterCaseReference == null) {
+            pageQuery.remove(SEARCH_AFTER);
+        } else {
+            pageQuery.putArray(SEARCH_AFTER).add(String.valueOf(afterCaseReference));
+        }
+        return pageQuery.toString();
+    }
+
+    private static ObjectNode parseQuery(String searchQuery) {
+        JsonNode query;
+        try {
+            query = OBJECT_MAPPER.readTree(searchQuery);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid elastic search query", e);
+        }
+        if (!(query instanceof ObjectNode objectQuery)) {
+            throw new IllegalArgumentException("Invalid elastic search query");
+        }
+        return objectQuery;
+    }
+
+    private static String getRangeDateSearchQuery(String dateFieldName, String dateToSearchFrom,
+                                                  String dateToSearchTo, Class<?> caseDataClass) {
+        ESQueryWriter writer = startSearch(MAX_ES_SIZE);
+        writer.startObject(QUERY).startObject(BOOL).startArray(FILTER);
+        writeRangeQuery(writer, dateFieldName, dateToSearchFrom, dateToSearchTo);
+        endBoolQuery(writer.endArray());
+        writeSourceFields(writer, caseDataClass);
+        return writer.endObject().toString();
+    }
+
+    public static String getClaimsAcceptedAggregationQuery(String dateToSearchFrom, String dateToSearchTo) {
+        return getDateHistogramAggregationQuery(dateToSearchFrom, dateToSearchTo, CLAIMS_ACCEPTED_REPORT,
+                "day", CASE_TYPE_FIELD_NAME);
+    }
+
+    /**
+     * Groups the cases in the report date range by groupByField. Only the buckets are returned unless a case data
+     * class is given for the per-case detail rows.
+     *
+     * <p>Bucket doc counts are cases, not collection entries. CCD collections such as hearingCollection are not
+     * mapped as nested, so a case with three hearings of one type counts once in that type's bucket. Reports that
+     * count collection entries, such as hearings by hearing type, have to count them from the cases instead.
+     */
+    public static String getTermsAggregationQuery(String dateToSearchFrom, String dateToSearchTo, String reportType,
+                                                  String groupByField, Class<?> detailCaseDataClass) {
+        ESQueryWriter writer = startReportAggregationSearch(dateToSearchFrom, dateToSearchTo, reportType,
+                detailCaseDataClass);
+        writer.startObject(AGGREGATIONS);
+        writeTermsAggregation(writer, GROUP_BY_AGGREGATION, groupByField);
+        return writer.endObject().endObject().toString();
+    }
+
+    /**
+     * Counts the cases in the report date range per calendar interval (e.g. "day", "month"), optionally split by
+     * groupByField within each interval.
+     */
+    public static String getDateHistogramAggregationQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                          String reportType, String calendarInterval,
+                                                          String groupByField) {
+        ESQueryWriter writer = startReportAggregationSearch(dateToSearchFrom, dateToSearchTo, reportType, null);
+        writer.startObject(AGGREGATIONS).startObject(PER_DAY_AGGREGATION)
+                .startObject("date_histogram")
+                .field(FIELD, getDateFieldName(reportType))
+                .field("calendar_interval", calendarInterval)
+                .field("format", "yyyy-MM-dd")
+                .endObject();
+        if (groupByField != null) {
+            writer.startObject(AGGREGATIONS);
+            writeTermsAggregation(writer, GROUP_BY_AGGREGATION, groupByField);
+            writer.endObject();
+        }
+        return writer.endObject().endObject().endObject().toString();
+    }
+
+    /**
+     * Groups the entries of a nested collection (e.g. hearings) rather than the cases that hold them. Requires
+     * nestedPath to be mapped as a nested type.
+     */
+    public static String getNestedTermsAggregationQuery(String dateToSearchFrom, String dateToSearchTo,
+                                                        String reportType, String nestedPath, String groupByField) {
+        ESQueryWriter writer = startReportAggregationSearch(dateToSearchFrom, dateToSearchTo, reportType, null);
+        writer.startObject(AGGREGATIONS).startObject(NESTED_AGGREGATION)
+                .startObject("nested").field("path", nestedPath).endObject()
+                .startObject(AGGREGATIONS);
+        writeTermsAggregation(writer, GROUP_BY_AGGREGATION, groupByField);
+        return writer.endObject().endObject().endObject().endObject().toString();
+    }
+
+    private static ESQueryWriter startSearch(int size) {
+        return new ESQueryWriter().startObject().field("size", size);
+    }
+
+    private static void writeTermsQuery(ESQueryWriter writer, String fieldName, Iterable<String> values) {
+        writer.startObject("terms")
+                .array(fieldName, values)
+                .field(BOOST, 1.0)
+                .endObject();
+    }
+
+    private static ESQueryWriter startReportAggregationSearch(String dateToSearchFrom, String dateToSearchTo,
+                                                              String reportType, Class<?> detailCaseDataClass) {
+        ESQueryWriter writer = startSearch(detailCaseDataClass == null ? 0 : MAX_ES_SIZE)
+                .field(TRACK_TOTAL_HITS, true);
+        writer.startObject(QUERY).startObject(BOOL).startArray(FILTER);
+        writeRangeQuery(writer, getDateFieldName(reportType), dateToSearchFrom, dateToSearchTo);
+        endBoolQuery(writer.endArray());
+        writeSourceFields(writer, detailCaseDataClass);
+        return writer;
+    }
+
+    private static void writeTermsAggregation(ESQueryWriter writer, String name, String fieldName) {
+        writer.startObject(name).startObject("terms")
+                .field(FIELD, fieldName)
+                .field("size", AGGREGATION_BUCKET_SIZE)
+                .endObject().endObject();
+    }
+
+    private static void writeRangeQuery(ESQueryWriter writer, String fieldName, String from, String to) {
+        writer.startObject().startObject("range").startObject(fieldName)
+                .field("from", from)
+                .field("to", to)
+                .field("include_lower", true)
+                .field("include_upper", true)
+                .field(BOOST, 1.0)
+                .endObject().endObject().endObject();
+    }
+
+    private static void endBoolQuery(ESQueryWriter writer) {
+        writer.field("adjust_pure_negative", true)
+                .field(BOOST, 1.0)
+                .endObject().endObject();
+    }
+
+    private static void writeSourceFields(ESQueryWriter writer, Class<?> caseDataClass) {
+        if (caseDataClass != null) {
+            writer.array(SOURCE, getSourceFields(caseDataClass));
+        }
+    }
+
+    /**
+     * Returns the _source includes needed to bind the given case data class, e.g. "data.ethosCaseReference".
+     * The fields are read from the class hierarchy once and then cached per class.
+     */
+    public static String[] getSourceFields(Class<?> caseDataClass) {
+        return SOURCE_FIELDS_CACHE.computeIfAbsent(caseDataClass, ESHelper::resolveSourceFields).clone();
+    }
+
+    private static String[] resolveSourceFields(Class<?> caseDataClass) {
+        List<String> sourceFields = new ArrayList<>();
+        for (Class<?> current = caseDataClass; current != null && current != Object.class;
+             current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+                if (jsonProperty == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                String name = jsonProperty.value().isEmpty() ? field.getName() : jsonProperty.value();
+                String sourceField = CASE_DATA_SOURCE_PREFIX + name;
+                if (!sourceFields.contains(sourceField)) {
+                    sourceFields.add(sourceField);
+                }
+            }
+        }
+        log.info("Source fields for {}: {}", caseDataClass.getSimpleName(), sourceFields);
+        return sourceFields.toArray(new String[0]);
     }
 
     private static String getDateFieldName(String reportType) {
@@ -0,0 +1,260 @@
+package uk.gov.hmcts.ecm.common.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming writer for Elasticsearch query DSL documents. JSON is encoded as UTF-8 straight into a
+ * growable byte buffer, with names and values escaped, so no intermediate strings or builder trees are created.
+ */
+public final class ESQueryWriter {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_DEPTH = 32;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+    private int count;
+    private final boolean[] firstInScope = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public ESQueryWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ESQueryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+        this.firstInScope[0] = true;
+    }
+
+    public ESQueryWriter startObject() {
+        beforeValue();
+        return open('{');
+    }
+
+    public ESQueryWriter startObject(String name) {
+        return name(name).startObject();
+    }
+
+    public ESQueryWriter endObject() {
+        return close('}');
+    }
+
+    public ESQueryWriter startArray() {
+        beforeValue();
+        return open('[');
+    }
+
+    public ESQueryWriter startArray(String name) {
+        return name(name).startArray();
+    }
+
+    public ESQueryWriter endArray() {
+        return close(']');
+    }
+
+    public ESQueryWriter name(String name) {
+        if (afterName) {
+            throw new IllegalStateException("Field name written twice: " + name);
+        }
+        separate();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public ESQueryWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public ESQueryWriter value(long value) {
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public ESQueryWriter value(double value) {
+        beforeValue();
+        writeAscii(Double.toString(value));
+        return this;
+    }
+
+    public ESQueryWriter value(boolean value) {
+        beforeValue();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public ESQueryWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public ESQueryWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public ESQueryWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    public ESQueryWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    public ESQueryWriter array(String name, Iterable<String> values) {
+        startArray(name);
+        for (String value : values) {
+            value(value);
+        }
+        return endArray();
+    }
+
+    public ESQueryWriter array(String name, String... values) {
+        return array(name, Arrays.asList(values));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+
+    private ESQueryWriter open(char bracket) {
+        if (depth + 1 >= MAX_DEPTH) {
+            throw new IllegalStateException("Query nested deeper than " + MAX_DEPTH);
+        }
+        writeByte(bracket);
+        firstInScope[++depth] = true;
+        return this;
+    }
+
+    private ESQueryWriter close(char bracket) {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Unbalanced '" + bracket + "'");
+        }
+        depth--;
+        writeByte(bracket);
+        return this;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+        } else {
+            separate();
+        }
+    }
+
+    private void separate() {
+        if (firstInScope[depth]) {
+            firstInScope[depth] = false;
+        } else {
+            writeByte(',');
+        }
+    }
+
+    private void writeString(String value) {
+        ensureCapacity(value.length() + 2);
+        buffer[count++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeEscapedAscii(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[count++] = (byte) (0xc0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                writeUnicodeEscape(c);
+            } else {
+                ensureCapacity(3);
+                buffer[count++] = (byte) (0xe0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscapedAscii(char c) {
+        switch (c) {
+            case '"':
+            case '\\':
+                writeByte('\\');
+                writeByte(c);
+                break;
+            case '\n':
+                writeAscii("\\n");
+                break;
+            case '\r':
+                writeAscii("\\r");
+                break;
+            case '\t':
+                writeAscii("\\t");
+                break;
+            case '\b':
+                writeAscii("\\b");
+                break;
+            case '\f':
+                writeAscii("\\f");
+                break;
+            default:
+                if (c < 0x20) {
+                    writeUnicodeEscape(c);
+                } else {
+                    writeByte(c);
+                }
+        }
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        buffer[count++] = '\\';
+        buffer[count++] = 'u';
+        buffer[count++] = HEX[(c >> 12) & 0xf];
+        buffer[count++] = HEX[(c >> 8) & 0xf];
+        buffer[count++] = HEX[(c >> 4) & 0xf];
+        buffer[count++] = HEX[c & 0xf];
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (count + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, count + extra));
+        }
+    }
+}
@@ -3,14 +3,24 @@ package uk.gov.hmcts.ecm.common.helpers;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
-public final class Partition<T> extends AbstractList<List<T>> {
+/**
+ * Consecutive chunks of a list, each of chunkSize elements except possibly the last. The source list is not copied
+ * up front; each chunk is copied from it when requested, so callers own the chunks they get and may change them.
+ */
+public final class Partition<T> extends AbstractList<List<T>> implements RandomAccess {
 
     private final transient List<T> list;
     private final transient int chunkSize;
 
     public Partition(List<T> list, int chunkSize) {
-        this.list = new ArrayList<>(list);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.list = list instanceof RandomAccess ? list : new ArrayList<>(list);
         this.chunkSize = chunkSize;
     }
 
@@ -20,18 +30,71 @@ public final class Partition<T> extends AbstractList<List<T>> {
 
     @Override
     public List<T> get(int index) {
-        int start = index * chunkSize;
-        int end = Math.min(start + chunkSize, list.size());
-
-        if (start > end) {
-            throw new IndexOutOfBoundsException("Index " + index + " is out of the list range <0," + (size() - 1) + ">");
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(
+                    "Index " + index + " is out of the list range <0," + (size() - 1) + ">");
         }
 
+        int start = index * chunkSize;
+        int end = Math.min(start + chunkSize, list.size());
         return new ArrayList<>(list.subList(start, end));
     }
 
     @Override
     public int size() {
-        return (int) Math.ceil((double) list.size() / (double) chunkSize);
+        return (list.size() + chunkSize - 1) / chunkSize;
+    }
+
+    @Override
+    public Spliterator<List<T>> spliterator() {
+        return new ChunkSpliterator(0, size());
+    }
+
+    private final class ChunkSpliterator implements Spliterator<List<T>> {
+
+        private int index;
+        private final int fence;
+
+        private ChunkSpliterator(int origin, int fence) {
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(get(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super List<T>> action) {
+            while (index < fence) {
+                action.accept(get(index++));
+            }
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            ChunkSpliterator prefix = new ChunkSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
     }
 }
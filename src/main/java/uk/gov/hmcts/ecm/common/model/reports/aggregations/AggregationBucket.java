@@ -0,0 +1,46 @@
+package uk.gov.hmcts.ecm.common.model.reports.aggregations;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class AggregationBucket {
+
+    @JsonProperty("key")
+    private String key;
+
+    @JsonProperty("key_as_string")
+    private String keyAsString;
+
+    @JsonProperty("doc_count")
+    private Long docCount;
+
+    private Map<String, AggregationResult> subAggregations = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, AggregationResult> getSubAggregations() {
+        return subAggregations;
+    }
+
+    @JsonAnySetter
+    public void addSubAggregation(String name, AggregationResult aggregationResult) {
+        subAggregations.put(name, aggregationResult);
+    }
+
+    public AggregationResult getSubAggregation(String name) {
+        return subAggregations.get(name);
+    }
+
+    @JsonIgnore
+    public String getLabel() {
+        return keyAsString != null ? keyAsString : key;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.gov.hmcts.ecm.common.model.reports.aggregations;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties({"meta", "interval"})
+public class AggregationResult {
+
+    @JsonProperty("doc_count")
+    private Long docCount;
+
+    @JsonProperty("doc_count_error_upper_bound")
+    private Long docCountErrorUpperBound;
+
+    @JsonProperty("sum_other_doc_count")
+    private Long sumOtherDocCount;
+
+    @JsonProperty("value")
+    private Double value;
+
+    @JsonProperty("buckets")
+    private List<AggregationBucket> buckets;
+
+    private Map<String, AggregationResult> subAggregations = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, AggregationResult> getSubAggregations() {
+        return subAggregations;
+    }
+
+    @JsonAnySetter
+    public void addSubAggregation(String name, AggregationResult aggregationResult) {
+        subAggregations.put(name, aggregationResult);
+    }
+
+    public AggregationResult getSubAggregation(String name) {
+        return subAggregations.get(name);
+    }
+
+    @JsonIgnore
+    public Map<String, Long> getBucketCounts() {
+        Map<String, Long> bucketCounts = new LinkedHashMap<>();
+        if (buckets != null) {
+            for (AggregationBucket bucket : buckets) {
+                bucketCounts.put(bucket.getLabel(), bucket.getDocCount());
+            }
+        }
+        return bucketCounts;
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.hmcts.ecm.common.model.reports.aggregations;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uk.gov.hmcts.ecm.common.model.ccd.SubmitEvent;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportAggregationSearchResult {
+    private Long total;
+    private List<SubmitEvent> cases;
+    private Map<String, AggregationResult> aggregations;
+
+    public AggregationResult getAggregation(String name) {
+        return aggregations == null ? null : aggregations.get(name);
+    }
+}
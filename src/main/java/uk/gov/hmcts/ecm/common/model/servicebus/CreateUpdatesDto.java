@@ -14,5 +14,7 @@ public class CreateUpdatesDto {
     private String caseTypeId;
     private String confirmation;
     private List<String> ethosCaseRefCollection;
+    // Id of the user action behind this update, e.g. a request or correlation id, used to derive the message ids
+    private String operationId;
 
 }
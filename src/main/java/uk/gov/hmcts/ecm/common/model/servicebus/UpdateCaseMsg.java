@@ -12,6 +12,8 @@ import uk.gov.hmcts.ecm.common.model.ccd.SubmitEvent;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.DataModelFactory;
 import uk.gov.hmcts.ecm.common.model.servicebus.tasks.*;
 
+import java.util.List;
+
 @EqualsAndHashCode(callSuper = true)
 @Data
 @NoArgsConstructor
@@ -47,4 +49,13 @@ public class UpdateCaseMsg extends Msg {
         dataTaskParent.run(submitEvent);
 
     }
+
+    /**
+     * Builds the task once and runs it over all the cases in parallel, isolating failures per case.
+     */
+    public TaskBatchResult runTask(List<SubmitEvent> submitEvents) {
+
+        return DataModelFactory.getDataModelType(dataModelParent).runAll(submitEvents);
+
+    }
 }
@@ -4,13 +4,21 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import lombok.extern.slf4j.Slf4j;
 import uk.gov.hmcts.ecm.common.model.ccd.SubmitEvent;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.DataModelParent;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
 @Data
 @NoArgsConstructor
 @SuperBuilder
 @JsonIgnoreProperties(ignoreUnknown = true)
+@Slf4j
 public abstract class DataTaskParent {
 
     DataModelParent dataModelParent;
@@ -21,4 +29,44 @@ public abstract class DataTaskParent {
 
     public abstract void run(SubmitEvent submitEvent);
 
+    public TaskBatchResult runAll(List<SubmitEvent> submitEvents) {
+        return runAll(submitEvents, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs this task over every case in parallel on the given pool. Tasks never change their data model and give
+     * each case its own copy of any model object they write into it, so one task can be shared by all the cases. A
+     * case that fails does not stop the others; its exception is reported in the result along with the time each
+     * case took.
+     */
+    public TaskBatchResult runAll(List<SubmitEvent> submitEvents, ForkJoinPool forkJoinPool) {
+        long start = System.nanoTime();
+        Consumer<SubmitEvent> caseTask = prepareBatch();
+        TaskBatchResult.CaseResult[] caseResults = new TaskBatchResult.CaseResult[submitEvents.size()];
+        forkJoinPool.submit(() -> IntStream.range(0, caseResults.length).parallel()
+                .forEach(i -> caseResults[i] = runCase(caseTask, submitEvents.get(i))))
+                .join();
+        return new TaskBatchResult(Arrays.asList(caseResults), System.nanoTime() - start);
+    }
+
+    /**
+     * The work applied to each case of a batch. Tasks can override it to do work that depends only on the data
+     * model once per batch rather than once per case.
+     */
+    protected Consumer<SubmitEvent> prepareBatch() {
+        return this::run;
+    }
+
+    private TaskBatchResult.CaseResult runCase(Consumer<SubmitEvent> caseTask, SubmitEvent submitEvent) {
+        long start = System.nanoTime();
+        try {
+            caseTask.accept(submitEvent);
+            return new TaskBatchResult.CaseResult(submitEvent, System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            log.error("Error running " + getClass().getSimpleName() + " on case "
+                    + (submitEvent == null ? null : submitEvent.getCaseId()), e);
+            return new TaskBatchResult.CaseResult(submitEvent, System.nanoTime() - start, e);
+        }
+    }
+
 }
@@ -0,0 +1,42 @@
+package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.function.Supplier;
+
+/**
+ * Copies the data model objects a task writes into a case, so that each case gets its own object rather than
+ * sharing, and possibly changing, the one held by the data model. The CCD types have no copy constructors, so
+ * objects are copied through their Jackson mapping.
+ */
+final class ModelCopier {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ModelCopier() {
+        // Access through static methods
+    }
+
+    /**
+     * Captures the value as it is now and returns a supplier of fresh copies of it. The value is serialized once,
+     * so each copy only costs its own construction.
+     */
+    static <T> Supplier<T> copies(T value, Class<T> type) {
+        if (value == null) {
+            return () -> null;
+        }
+        JsonNode tree = OBJECT_MAPPER.valueToTree(value);
+        return () -> {
+            try {
+                return OBJECT_MAPPER.treeToValue(tree, type);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unable to copy " + type.getSimpleName(), e);
+            }
+        };
+    }
+
+}
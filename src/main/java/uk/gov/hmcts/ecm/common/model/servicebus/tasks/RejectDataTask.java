@@ -13,6 +13,9 @@ import uk.gov.hmcts.ecm.common.model.ccd.types.CasePreAcceptType;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.DataModelParent;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.RejectDataModel;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.NO;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.SINGLE_OPEN_CASE_STATES;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.YES;
@@ -45,7 +48,8 @@ public class RejectDataTask extends DataTaskParent {
             CasePreAcceptType casePreAcceptType = new CasePreAcceptType();
             casePreAcceptType.setCaseAccepted(NO);
             casePreAcceptType.setDateRejected(((RejectDataModel) dataModelParent).getDateRejected());
-            casePreAcceptType.setRejectReason(((RejectDataModel) dataModelParent).getRejectReason());
+            List<String> rejectReason = ((RejectDataModel) dataModelParent).getRejectReason();
+            casePreAcceptType.setRejectReason(rejectReason == null ? null : new ArrayList<>(rejectReason));
             caseData.setPreAcceptCase(casePreAcceptType);
         }
     }
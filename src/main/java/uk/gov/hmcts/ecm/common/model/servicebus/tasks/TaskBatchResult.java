@@ -0,0 +1,51 @@
+package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
+
+import uk.gov.hmcts.ecm.common.model.ccd.SubmitEvent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of running a task over a batch of cases: one CaseResult per case, in the order of the cases, and the
+ * elapsed time of the whole batch.
+ */
+public class TaskBatchResult {
+
+    public record CaseResult(SubmitEvent submitEvent, long elapsedNanos, RuntimeException failure) {
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+    }
+
+    private final List<CaseResult> caseResults;
+    private final long elapsedNanos;
+
+    TaskBatchResult(List<CaseResult> caseResults, long elapsedNanos) {
+        this.caseResults = Collections.unmodifiableList(caseResults);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<CaseResult> getCaseResults() {
+        return caseResults;
+    }
+
+    public List<CaseResult> getFailures() {
+        return caseResults.stream().filter(caseResult -> !caseResult.isSuccessful()).collect(Collectors.toList());
+    }
+
+    public boolean isSuccessful() {
+        return caseResults.stream().allMatch(CaseResult::isSuccessful);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskBatchResult{cases=" + caseResults.size() + ", failed=" + getFailures().size()
+                + ", elapsedMillis=" + elapsedNanos / 1_000_000 + '}';
+    }
+}
@@ -2,9 +2,12 @@ package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.base.Strings;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -27,7 +30,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -45,64 +51,116 @@ import static uk.gov.hmcts.ecm.common.model.helper.Constants.YES;
 @Slf4j
 public class UpdateDataTask extends DataTaskParent {
 
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final transient AtomicReference<UpdatePlan> updatePlan = new AtomicReference<>();
+
     public UpdateDataTask(DataModelParent dataModelParent) {
         super(dataModelParent);
     }
 
     public void run(SubmitEvent submitEvent) {
-        amendUpdateFields(submitEvent.getCaseData());
+        currentPlan().apply(submitEvent.getCaseData());
+    }
+
+    @Override
+    protected Consumer<SubmitEvent> prepareBatch() {
+        UpdatePlan plan = currentPlan();
+        return submitEvent -> plan.apply(submitEvent.getCaseData());
+    }
+
+    /**
+     * The plan for the current data model, compiled on first use and reused by every later run. It reflects the
+     * model as it was when compiled; setting a different data model compiles a new plan.
+     */
+    private UpdatePlan currentPlan() {
+        UpdatePlan plan = updatePlan.get();
+        if (plan == null || plan.dataModelParent != dataModelParent) {
+            plan = compileUpdatePlan();
+            updatePlan.set(plan);
+        }
+        return plan;
     }
 
-    private void amendUpdateFields(CaseData caseData) {
+    /**
+     * Compiles the data model into the field updates it asks for, in the order they are applied. The model is the
+     * same for every case of a multiple, so the plan can be compiled once and applied to each case.
+     */
+    public UpdatePlan compileUpdatePlan() {
         var updateDataModel = ((UpdateDataModel) dataModelParent);
+        List<Consumer<CaseData>> mutators = new ArrayList<>();
 
-        batchUpdate1(caseData, updateDataModel);
-        batchUpdate2(caseData, updateDataModel);
-        batchUpdate3(caseData, updateDataModel);
-        resetJurisdictionCodes(caseData, updateDataModel);
+        compileBatchUpdate1(updateDataModel, mutators);
+        compileBatchUpdate2(updateDataModel, mutators);
+        compileBatchUpdate3(updateDataModel, mutators);
+        compileResetJurisdictionCodes(updateDataModel, mutators);
+        return new UpdatePlan(updateDataModel, mutators);
     }
 
-    private void resetJurisdictionCodes(CaseData caseData, UpdateDataModel updateDataModel) {
-        if (CollectionUtils.isNotEmpty(caseData.getJurCodesCollection())
-                && YES.equals(updateDataModel.getIsFixCase())) {
-            for (var jurCodeTypeItem : caseData.getJurCodesCollection()) {
-                if (!jurCodeTypeItem.getId().matches(
-                        "[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}")) {
-                    jurCodeTypeItem.setId(UUID.randomUUID().toString());
-                }
+    public static final class UpdatePlan {
+
+        private final DataModelParent dataModelParent;
+        private final List<Consumer<CaseData>> mutators;
+
+        private UpdatePlan(DataModelParent dataModelParent, List<Consumer<CaseData>> mutators) {
+            this.dataModelParent = dataModelParent;
+            this.mutators = List.copyOf(mutators);
+        }
+
+        public void apply(CaseData caseData) {
+            for (Consumer<CaseData> mutator : mutators) {
+                mutator.accept(caseData);
             }
         }
 
+        public int size() {
+            return mutators.size();
+        }
     }
 
-    private void batchUpdate1(CaseData caseData, UpdateDataModel updateDataModel) {
-        if (!isNullOrEmpty(updateDataModel.getPositionType())) {
-            caseData.setPositionType(updateDataModel.getPositionType());
-            dateToCurrentPosition(caseData);
+    private void compileResetJurisdictionCodes(UpdateDataModel updateDataModel,
+                                               List<Consumer<CaseData>> mutators) {
+        if (YES.equals(updateDataModel.getIsFixCase())) {
+            mutators.add(this::resetJurisdictionCodes);
         }
+    }
 
-        if (!isNullOrEmpty(updateDataModel.getClerkResponsible())) {
-            caseData.setClerkResponsible(updateDataModel.getClerkResponsible());
+    private void resetJurisdictionCodes(CaseData caseData) {
+        if (CollectionUtils.isNotEmpty(caseData.getJurCodesCollection())) {
+            for (var jurCodeTypeItem : caseData.getJurCodesCollection()) {
+                if (!UuidGenerator.isValid(jurCodeTypeItem.getId())) {
+                    jurCodeTypeItem.setId(UuidGenerator.randomId());
+                }
+            }
         }
 
-        if (!isNullOrEmpty(updateDataModel.getHearingStage())) {
-            caseData.setHearingStage(updateDataModel.getHearingStage());
-        }
+    }
 
-        if (!isNullOrEmpty(updateDataModel.getReceiptDate())) {
-            caseData.setReceiptDate(updateDataModel.getReceiptDate());
+    private void compileBatchUpdate1(UpdateDataModel updateDataModel, List<Consumer<CaseData>> mutators) {
+        String positionType = updateDataModel.getPositionType();
+        if (!isNullOrEmpty(positionType)) {
+            mutators.add(caseData -> {
+                caseData.setPositionType(positionType);
+                dateToCurrentPosition(caseData);
+            });
         }
 
-        if (!isNullOrEmpty(updateDataModel.getConciliationTrack())) {
-            caseData.setConciliationTrack(updateDataModel.getConciliationTrack());
-        }
+        addIfPresent(mutators, updateDataModel.getClerkResponsible(), CaseData::setClerkResponsible);
+        addIfPresent(mutators, updateDataModel.getHearingStage(), CaseData::setHearingStage);
+        addIfPresent(mutators, updateDataModel.getReceiptDate(), CaseData::setReceiptDate);
+        addIfPresent(mutators, updateDataModel.getConciliationTrack(), CaseData::setConciliationTrack);
+
+        compileManagingOffice(updateDataModel, mutators);
+    }
 
-        updateManagingOffice(caseData, updateDataModel);
+    private void compileBatchUpdate2(UpdateDataModel updateDataModel, List<Consumer<CaseData>> mutators) {
+        addIfPresent(mutators, updateDataModel.getSubMultiple(), CaseData::setSubMultipleName);
     }
 
-    private void batchUpdate2(CaseData caseData, UpdateDataModel updateDataModel) {
-        if (!isNullOrEmpty(updateDataModel.getSubMultiple())) {
-            caseData.setSubMultipleName(updateDataModel.getSubMultiple());
+    private static void addIfPresent(List<Consumer<CaseData>> mutators, String value,
+                                     BiConsumer<CaseData, String> setter) {
+        if (!isNullOrEmpty(value)) {
+            mutators.add(caseData -> setter.accept(caseData, value));
         }
     }
 
@@ -114,30 +172,13 @@ public class UpdateDataTask extends DataTaskParent {
         }
     }
 
-    private void updateManagingOffice(CaseData caseData, UpdateDataModel updateDataModel) {
-        if (!isNullOrEmpty(updateDataModel.getManagingOffice())) {
-            caseData.setManagingOffice(updateDataModel.getManagingOffice());
-        }
-
-        if (!isNullOrEmpty(updateDataModel.getFileLocation())) {
-            caseData.setFileLocation(updateDataModel.getFileLocation());
-        }
-
-        if (!isNullOrEmpty(updateDataModel.getFileLocationGlasgow())) {
-            caseData.setFileLocationGlasgow(updateDataModel.getFileLocationGlasgow());
-        }
-
-        if (!isNullOrEmpty(updateDataModel.getFileLocationAberdeen())) {
-            caseData.setFileLocationAberdeen(updateDataModel.getFileLocationAberdeen());
-        }
-
-        if (!isNullOrEmpty(updateDataModel.getFileLocationDundee())) {
-            caseData.setFileLocationDundee(updateDataModel.getFileLocationDundee());
-        }
-
-        if (!isNullOrEmpty(updateDataModel.getFileLocationEdinburgh())) {
-            caseData.setFileLocationEdinburgh(updateDataModel.getFileLocationEdinburgh());
-        }
+    private void compileManagingOffice(UpdateDataModel updateDataModel, List<Consumer<CaseData>> mutators) {
+        addIfPresent(mutators, updateDataModel.getManagingOffice(), CaseData::setManagingOffice);
+        addIfPresent(mutators, updateDataModel.getFileLocation(), CaseData::setFileLocation);
+        addIfPresent(mutators, updateDataModel.getFileLocationGlasgow(), CaseData::setFileLocationGlasgow);
+        addIfPresent(mutators, updateDataModel.getFileLocationAberdeen(), CaseData::setFileLocationAberdeen);
+        addIfPresent(mutators, updateDataModel.getFileLocationDundee(), CaseData::setFileLocationDundee);
+        addIfPresent(mutators, updateDataModel.getFileLocationEdinburgh(), CaseData::setFileLocationEdinburgh);
     }
 
     private boolean shouldClaimantRepresentativeBeRemoved(CaseData caseData, UpdateDataModel updateDataModel) {
@@ -182,35 +223,56 @@ public class UpdateDataTask extends DataTaskParent {
                 .getNameOfOrganisation().equals(caseData.getRepresentativeClaimantType().getNameOfOrganisation());
     }
 
-    private void batchUpdate3(CaseData caseData, UpdateDataModel updateDataModel) {
-        boolean shouldRepresentativeCBeRemoved = shouldClaimantRepresentativeBeRemoved(caseData, updateDataModel);
-        if (updateDataModel.getRepresentativeClaimantType() != null && !shouldRepresentativeCBeRemoved) {
-            caseData.setRepresentativeClaimantType(updateDataModel.getRepresentativeClaimantType());
-            caseData.setClaimantRepresentedQuestion(YES);
-        } else if (updateDataModel.getRepresentativeClaimantType() != null) {
-            caseData.setRepresentativeClaimantType(new RepresentedTypeC());
-            caseData.setClaimantRepresentedQuestion(NO);
+    private void compileBatchUpdate3(UpdateDataModel updateDataModel, List<Consumer<CaseData>> mutators) {
+        RepresentedTypeC representativeClaimantType = updateDataModel.getRepresentativeClaimantType();
+        if (representativeClaimantType != null) {
+            Supplier<RepresentedTypeC> claimantRepCopies =
+                    ModelCopier.copies(representativeClaimantType, RepresentedTypeC.class);
+            mutators.add(caseData -> updateClaimantRepresentative(caseData, updateDataModel, claimantRepCopies));
         }
 
-        if (updateDataModel.getJurCodesType() != null) {
-            updateJurisdictionCode(caseData, updateDataModel.getJurCodesType());
+        JurCodesType jurCodesType = updateDataModel.getJurCodesType();
+        if (jurCodesType != null) {
+            Supplier<JurCodesType> jurCodesCopies = ModelCopier.copies(jurCodesType, JurCodesType.class);
+            mutators.add(caseData -> updateJurisdictionCode(caseData, jurCodesCopies.get()));
         }
 
-        if (updateDataModel.getRespondentSumType() != null) {
+        RespondentSumType respondentSumType = updateDataModel.getRespondentSumType();
+        if (respondentSumType != null) {
             String respondentUpdateType = updateDataModel.getBatchRespondentUpdateType();
-            updateRespondentSumType(caseData, updateDataModel.getRespondentSumType(),
-                respondentUpdateType);
+            Supplier<RespondentSumType> respondentCopies =
+                    ModelCopier.copies(respondentSumType, RespondentSumType.class);
+            mutators.add(caseData -> updateRespondentSumType(caseData, respondentCopies.get(), respondentUpdateType));
         }
 
-        if (updateDataModel.getJudgementType() != null) {
-            updateJudgement(caseData, updateDataModel.getJudgementType());
+        JudgementType judgementType = updateDataModel.getJudgementType();
+        if (judgementType != null) {
+            Supplier<JudgementType> judgementCopies = ModelCopier.copies(judgementType, JudgementType.class);
+            mutators.add(caseData -> updateJudgement(caseData, judgementCopies.get()));
         }
 
-        if (updateDataModel.getRepresentedType() != null &&
-                !shouldRespondentRepresentativeBeRemoved(caseData, updateDataModel)) {
-            addRespondentRep(caseData, updateDataModel.getRepresentedType());
-        } else if (updateDataModel.getRepresentedType() != null) {
-            removeRespondentRep(caseData, updateDataModel.getRepresentedType());
+        RepresentedTypeR representedType = updateDataModel.getRepresentedType();
+        if (representedType != null) {
+            Supplier<RepresentedTypeR> respondentRepCopies =
+                    ModelCopier.copies(representedType, RepresentedTypeR.class);
+            mutators.add(caseData -> {
+                if (!shouldRespondentRepresentativeBeRemoved(caseData, updateDataModel)) {
+                    addRespondentRep(caseData, respondentRepCopies.get());
+                } else {
+                    removeRespondentRep(caseData, representedType);
+                }
+            });
+        }
+    }
+
+    private void updateClaimantRepresentative(CaseData caseData, UpdateDataModel updateDataModel,
+                                              Supplier<RepresentedTypeC> claimantRepCopies) {
+        if (!shouldClaimantRepresentativeBeRemoved(caseData, updateDataModel)) {
+            caseData.setRepresentativeClaimantType(claimantRepCopies.get());
+            caseData.setClaimantRepresentedQuestion(YES);
+        } else {
+            caseData.setRepresentativeClaimantType(new RepresentedTypeC());
+            caseData.setClaimantRepresentedQuestion(NO);
         }
     }
 
@@ -281,7 +343,7 @@ public class UpdateDataTask extends DataTaskParent {
 
     private RespondentSumTypeItem createRespondentSumTypeItem(RespondentSumType respondentSumType) {
         var respondentSumTypeItem = new RespondentSumTypeItem();
-        respondentSumTypeItem.setId(UUID.randomUUID().toString());
+        respondentSumTypeItem.setId(UuidGenerator.randomId());
         respondentSumTypeItem.setValue(respondentSumType);
         return respondentSumTypeItem;
     }
@@ -313,7 +375,7 @@ public class UpdateDataTask extends DataTaskParent {
     private JurCodesTypeItem createJurCodesTypeItem(JurCodesType jurCodesType) {
         var jurCodesTypeItem = new JurCodesTypeItem();
 
-        jurCodesTypeItem.setId(UUID.randomUUID().toString());
+        jurCodesTypeItem.setId(UuidGenerator.randomId());
         jurCodesTypeItem.setValue(jurCodesType);
 
         return jurCodesTypeItem;
@@ -386,7 +448,7 @@ public class UpdateDataTask extends DataTaskParent {
     private RepresentedTypeRItem createRespondentRepTypeItem(RepresentedTypeR representedType) {
         var representedTypeRItem = new RepresentedTypeRItem();
 
-        representedTypeRItem.setId(UUID.randomUUID().toString());
+        representedTypeRItem.setId(UuidGenerator.randomId());
         representedTypeRItem.setValue(representedType);
 
         return representedTypeRItem;
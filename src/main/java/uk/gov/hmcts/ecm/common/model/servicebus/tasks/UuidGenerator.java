@@ -0,0 +1,56 @@
+package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ids for the collection items the tasks add to a case. Item ids only need to be unique within a case, not
+ * unguessable, so they are drawn from ThreadLocalRandom rather than the SecureRandom behind UUID.randomUUID, which
+ * threads running tasks in parallel would contend on.
+ */
+public final class UuidGenerator {
+
+    private static final int UUID_LENGTH = 36;
+
+    private UuidGenerator() {
+    }
+
+    /**
+     * A random version 4 UUID.
+     */
+    public static UUID randomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & ~0xC000000000000000L) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static String randomId() {
+        return randomUuid().toString();
+    }
+
+    /**
+     * Whether the id is a lower case UUID of version 1 to 5 in the standard 8-4-4-4-12 form.
+     */
+    public static boolean isValid(String id) {
+        if (id == null || id.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (!isValidChar(i, id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidChar(int index, char c) {
+        return switch (index) {
+            case 8, 13, 18, 23 -> c == '-';
+            case 14 -> c >= '1' && c <= '5';
+            case 19 -> c == '8' || c == '9' || c == 'a' || c == 'b';
+            default -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+        };
+    }
+
+}
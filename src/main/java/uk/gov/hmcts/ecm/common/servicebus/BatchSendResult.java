@@ -0,0 +1,47 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch send: the ids of the messages accepted by the queue and the failure of each message that
+ * was not, keyed by message id.
+ */
+public class BatchSendResult {
+
+    private final List<String> sentMsgIds = new ArrayList<>();
+    private final Map<String, Throwable> failures = new LinkedHashMap<>();
+
+    public List<String> getSentMsgIds() {
+        return Collections.unmodifiableList(sentMsgIds);
+    }
+
+    public Map<String, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    void addSent(String msgId) {
+        sentMsgIds.add(msgId);
+    }
+
+    void addFailure(String msgId, Throwable failure) {
+        failures.put(msgId, failure);
+    }
+
+    void addAll(BatchSendResult result) {
+        sentMsgIds.addAll(result.sentMsgIds);
+        failures.putAll(result.failures);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSendResult{sent=" + sentMsgIds.size() + ", failed=" + failures.keySet() + '}';
+    }
+}
@@ -1,19 +1,118 @@
 package uk.gov.hmcts.ecm.common.servicebus;
 
+import com.microsoft.azure.servicebus.IMessage;
 import com.microsoft.azure.servicebus.MessageBody;
 import org.springframework.util.CollectionUtils;
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static uk.gov.hmcts.ecm.common.servicebus.ServiceBusSender.CONTENT_ENCODING_PROPERTY;
+import static uk.gov.hmcts.ecm.common.servicebus.ServiceBusSender.GZIP_CONTENT_ENCODING;
 
 public final class MessageBodyRetriever {
 
+    /**
+     * Returns the message body, decompressed if it was sent gzip compressed. Compressed bodies are recognised by
+     * the gzip header, which never starts a JSON document.
+     */
     public static byte[] getBinaryData(MessageBody messageBody) {
         List<byte[]> binaryData = messageBody.getBinaryData();
 
-        return CollectionUtils.isEmpty(binaryData) ? null : binaryData.get(0);
+        if (CollectionUtils.isEmpty(binaryData)) {
+            return null;
+        }
+        byte[] body = binaryData.get(0);
+        return isGzip(body) ? decompress(body) : body;
+    }
+
+    public static byte[] getBinaryData(IMessage message) {
+        if (message.getProperties() != null
+                && GZIP_CONTENT_ENCODING.equals(message.getProperties().get(CONTENT_ENCODING_PROPERTY))) {
+            List<byte[]> binaryData = message.getMessageBody().getBinaryData();
+            return CollectionUtils.isEmpty(binaryData) ? null : decompress(binaryData.get(0));
+        }
+        return getBinaryData(message.getMessageBody());
+    }
+
+    /**
+     * Streams all body segments in order without concatenating them, decompressing if the body was sent gzip
+     * compressed.
+     */
+    public static InputStream getInputStream(MessageBody messageBody) throws IOException {
+        List<byte[]> binaryData = messageBody.getBinaryData();
+        if (CollectionUtils.isEmpty(binaryData)) {
+            return InputStream.nullInputStream();
+        }
+        PushbackInputStream body = new PushbackInputStream(new SegmentInputStream(binaryData), 2);
+        byte[] header = body.readNBytes(2);
+        body.unread(header);
+        return isGzip(header) ? new GZIPInputStream(body) : body;
+    }
+
+    static boolean isGzip(byte[] body) {
+        return body != null && body.length > 1
+                && body[0] == (byte) GZIPInputStream.GZIP_MAGIC && body[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    private static byte[] decompress(byte[] body) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new InvalidMessageException("Unable to decompress message body", e);
+        }
     }
 
     private MessageBodyRetriever() {
         // utility class construct
     }
+
+    private static final class SegmentInputStream extends InputStream {
+
+        private final List<byte[]> segments;
+        private int segment;
+        private int position;
+
+        private SegmentInputStream(List<byte[]> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public int read() {
+            byte[] current = current();
+            return current == null ? -1 : current[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            byte[] current = current();
+            if (current == null) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private byte[] current() {
+            while (segment < segments.size()) {
+                byte[] current = segments.get(segment);
+                if (current != null && position < current.length) {
+                    return current;
+                }
+                segment++;
+                position = 0;
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serialization of Msg bodies for one message content type.
+ */
+public interface MessageCodec {
+
+    String getContentType();
+
+    byte[] encode(Msg msg);
+
+    <T extends Msg> T decode(byte[] body, Class<T> msgType);
+
+    /**
+     * Decodes a body read from a stream, e.g. one spanning several message body segments. Codecs that can parse a
+     * stream directly should override this, which by default reads the whole body first.
+     */
+    default <T extends Msg> T decode(InputStream body, Class<T> msgType) {
+        try {
+            return decode(body.readAllBytes(), msgType);
+        } catch (IOException e) {
+            throw new InvalidMessageException("Unable to read message body in " + getContentType() + " format", e);
+        }
+    }
+}
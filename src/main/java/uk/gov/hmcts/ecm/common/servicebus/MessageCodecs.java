@@ -0,0 +1,74 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.MessageBody;
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codecs by content type, used on the receiving side to decode a message with the codec it was sent with. JSON and
+ * Smile are registered by default; messages without a content type are decoded as JSON.
+ */
+public class MessageCodecs {
+
+    private final Map<String, MessageCodec> codecs = new ConcurrentHashMap<>();
+    private final MessageCodec defaultCodec;
+
+    public MessageCodecs(ObjectMapper objectMapper) {
+        this.defaultCodec = JacksonMessageCodec.json(objectMapper);
+        register(defaultCodec);
+        register(JacksonMessageCodec.smile(objectMapper));
+    }
+
+    public MessageCodecs register(MessageCodec codec) {
+        codecs.put(codec.getContentType(), codec);
+        return this;
+    }
+
+    public MessageCodec forContentType(String contentType) {
+        if (Strings.isNullOrEmpty(contentType)) {
+            return defaultCodec;
+        }
+        MessageCodec codec = codecs.get(contentType);
+        if (codec == null) {
+            throw new InvalidMessageException("Unsupported message content type " + contentType);
+        }
+        return codec;
+    }
+
+    public <T extends Msg> T decode(IMessage message, Class<T> msgType) {
+        List<byte[]> binaryData = message.getMessageBody() == null ? null : message.getMessageBody().getBinaryData();
+        if (binaryData == null || binaryData.isEmpty()) {
+            throw new InvalidMessageException("Message body is empty. Message ID: " + message.getMessageId());
+        }
+        return decode(message.getMessageBody(), message.getContentType(), msgType);
+    }
+
+    /**
+     * Decodes a body of the given content type from all its segments, decompressing it if it was sent gzip
+     * compressed. A single uncompressed segment is decoded in place, otherwise the segments are streamed.
+     */
+    public <T extends Msg> T decode(MessageBody messageBody, String contentType, Class<T> msgType) {
+        MessageCodec codec = forContentType(contentType);
+        List<byte[]> binaryData = messageBody.getBinaryData();
+        if (binaryData == null || binaryData.isEmpty()) {
+            throw new InvalidMessageException("Message body is empty");
+        }
+        if (binaryData.size() == 1 && !MessageBodyRetriever.isGzip(binaryData.get(0))) {
+            return codec.decode(binaryData.get(0), msgType);
+        }
+        try (InputStream body = MessageBodyRetriever.getInputStream(messageBody)) {
+            return codec.decode(body, msgType);
+        } catch (IOException e) {
+            throw new InvalidMessageException("Unable to read " + msgType.getSimpleName() + " from message body", e);
+        }
+    }
+}
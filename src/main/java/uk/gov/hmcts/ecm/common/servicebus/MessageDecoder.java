@@ -0,0 +1,44 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.MessageBody;
+import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesMsg;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+
+/**
+ * Typed decoder for received messages. The codec is picked from MessageCodecs by the message content type, and
+ * bodies are read straight from their binary segments; a single uncompressed segment is parsed in place.
+ */
+public class MessageDecoder {
+
+    private final MessageCodecs messageCodecs;
+
+    public MessageDecoder(ObjectMapper objectMapper) {
+        this(new MessageCodecs(objectMapper));
+    }
+
+    public MessageDecoder(MessageCodecs messageCodecs) {
+        this.messageCodecs = messageCodecs;
+    }
+
+    public UpdateCaseMsg decodeUpdateCaseMsg(IMessage message) {
+        return decode(message, UpdateCaseMsg.class);
+    }
+
+    public CreateUpdatesMsg decodeCreateUpdatesMsg(IMessage message) {
+        return decode(message, CreateUpdatesMsg.class);
+    }
+
+    public <T extends Msg> T decode(IMessage message, Class<T> msgType) {
+        return messageCodecs.decode(message, msgType);
+    }
+
+    /**
+     * Decodes a body without a content type, as JSON.
+     */
+    public <T extends Msg> T decode(MessageBody messageBody, Class<T> msgType) {
+        return messageCodecs.decode(messageBody, null, msgType);
+    }
+}
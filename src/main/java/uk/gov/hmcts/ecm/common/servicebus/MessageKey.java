@@ -0,0 +1,33 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+
+import java.util.function.Function;
+
+/**
+ * Message fields that can be used as Service Bus session id or partition key. Messages with the same key are
+ * delivered in order, while messages with different keys can be processed in parallel.
+ */
+public enum MessageKey implements Function<Msg, String> {
+
+    MULTIPLE_REF {
+        @Override
+        public String apply(Msg msg) {
+            return msg.getMultipleRef();
+        }
+    },
+
+    /**
+     * The ethos case reference of an UpdateCaseMsg, or the multiple reference for any other message.
+     */
+    ETHOS_CASE_REFERENCE {
+        @Override
+        public String apply(Msg msg) {
+            return msg instanceof UpdateCaseMsg updateCaseMsg
+                    ? updateCaseMsg.getEthosCaseReference()
+                    : msg.getMultipleRef();
+        }
+    }
+
+}
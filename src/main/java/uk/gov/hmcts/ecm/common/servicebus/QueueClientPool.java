@@ -0,0 +1,161 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.primitives.ServiceBusException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+
+/**
+ * Spreads sends over several queue clients, each with its own AMQP connection. Every send picks a client either
+ * in turn or by the fewest sends in flight.
+ */
+@Slf4j
+public class QueueClientPool implements AutoCloseable {
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_IN_FLIGHT
+    }
+
+    static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final List<IQueueClient> queueClients;
+    private final Selection selection;
+    private final AtomicIntegerArray inFlight;
+    private final AtomicInteger next = new AtomicInteger();
+    private final String queueName;
+
+    public QueueClientPool(List<IQueueClient> queueClients, Selection selection) {
+        if (queueClients.isEmpty()) {
+            throw new IllegalArgumentException("At least one queue client is required");
+        }
+        this.queueClients = new ArrayList<>(queueClients);
+        this.selection = selection;
+        this.inFlight = new AtomicIntegerArray(queueClients.size());
+        this.queueName = queueClients.get(0) == null ? null : queueClients.get(0).getQueueName();
+    }
+
+    /**
+     * Name of the queue the clients send to, or null if it is not known.
+     */
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public int size() {
+        return queueClients.size();
+    }
+
+    public int inFlightCount() {
+        int count = 0;
+        for (int i = 0; i < inFlight.length(); i++) {
+            count += inFlight.get(i);
+        }
+        return count;
+    }
+
+    public void send(IMessage message) throws InterruptedException, ServiceBusException {
+        int index = acquire();
+        try {
+            queueClients.get(index).send(message);
+        } finally {
+            inFlight.decrementAndGet(index);
+        }
+    }
+
+    public CompletableFuture<Void> sendAsync(IMessage message) {
+        return submit(queueClient -> queueClient.sendAsync(message));
+    }
+
+    public CompletableFuture<Void> sendBatchAsync(Collection<? extends IMessage> messages) {
+        return submit(queueClient -> queueClient.sendBatchAsync(messages));
+    }
+
+    public CompletableFuture<Long> scheduleMessageAsync(IMessage message, Instant enqueueTime) {
+        return submit(queueClient -> queueClient.scheduleMessageAsync(message, enqueueTime));
+    }
+
+    private <T> CompletableFuture<T> submit(Function<IQueueClient, CompletableFuture<T>> operation) {
+        int index = acquire();
+        CompletableFuture<T> result;
+        try {
+            result = operation.apply(queueClients.get(index));
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet(index);
+            throw e;
+        }
+        return result.whenComplete((ignored, failure) -> inFlight.decrementAndGet(index));
+    }
+
+    private int acquire() {
+        int index = selection == Selection.LEAST_IN_FLIGHT ? leastInFlight() : roundRobin();
+        inFlight.incrementAndGet(index);
+        return index;
+    }
+
+    private int roundRobin() {
+        return Math.floorMod(next.getAndIncrement(), queueClients.size());
+    }
+
+    /**
+     * Scans from the round-robin position so ties are spread over the clients rather than always going to the first.
+     */
+    private int leastInFlight() {
+        int start = roundRobin();
+        int least = start;
+        for (int i = 1; i < queueClients.size(); i++) {
+            int index = (start + i) % queueClients.size();
+            if (inFlight.get(index) < inFlight.get(least)) {
+                least = index;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * Closes every client in parallel and waits up to CLOSE_TIMEOUT for all of them to finish closing.
+     */
+    @Override
+    public void close() {
+        List<CompletableFuture<Void>> closes = new ArrayList<>(queueClients.size());
+        for (IQueueClient queueClient : queueClients) {
+            if (queueClient == null) {
+                continue;
+            }
+            try {
+                closes.add(queueClient.closeAsync());
+            } catch (RuntimeException e) {
+                closes.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+        for (CompletableFuture<Void> close : closes) {
+            try {
+                close.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while closing queue clients");
+                return;
+            } catch (ExecutionException e) {
+                log.error("Error in closing queue client::", e.getCause());
+            } catch (TimeoutException e) {
+                log.error("Timed out closing queue clients after " + CLOSE_TIMEOUT);
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,334 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.primitives.ServiceBusException;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusConnectionTimeoutException;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusSendException;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends through a ServiceBusSender, riding out short broker outages. Transient failures are retried with jittered
+ * exponential backoff. Messages that still fail are held in a bounded overflow buffer, which is drained in order once
+ * a probe send succeeds. Messages are dropped, and reported to the dropped message callback, only when they are
+ * invalid or the buffer is full.
+ */
+@Slf4j
+public class ResilientServiceBusSender implements AutoCloseable {
+
+    /**
+     * Attempts per message before it is buffered, and the bounds of the backoff between attempts. The backoff
+     * doubles from initialBackoff up to maxBackoff, and the buffer is probed every maxBackoff while the connection
+     * is down.
+     */
+    public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+        public RetryPolicy {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+            }
+        }
+
+        /**
+         * Backoff before the given retry, 1 for the first: half the exponential delay plus a random part of the
+         * other half, so senders that failed together do not retry together.
+         */
+        long backoffNanos(int retry) {
+            long delay = initialBackoff.toNanos() << Math.min(retry - 1, 30);
+            if (delay <= 0 || delay > maxBackoff.toNanos()) {
+                delay = maxBackoff.toNanos();
+            }
+            long half = delay / 2;
+            return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+        }
+    }
+
+    private final ServiceBusSender serviceBusSender;
+    private final RetryPolicy retryPolicy;
+    private final int overflowCapacity;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ScheduledExecutorService scheduler;
+    private final BiConsumer<Msg, Throwable> droppedMessageCallback;
+    private final ArrayDeque<Pending> overflow = new ArrayDeque<>();
+    private final Set<Pending> retrying = new HashSet<>();
+    private boolean draining;
+    private Pending drainHead;
+    private boolean closed;
+
+    public ResilientServiceBusSender(ServiceBusSender serviceBusSender, RetryPolicy retryPolicy, int overflowCapacity,
+                                     BiConsumer<Msg, Throwable> droppedMessageCallback) {
+        this(serviceBusSender, retryPolicy, overflowCapacity, droppedMessageCallback,
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "service-bus-retry");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    ResilientServiceBusSender(ServiceBusSender serviceBusSender, RetryPolicy retryPolicy, int overflowCapacity,
+                              BiConsumer<Msg, Throwable> droppedMessageCallback, ScheduledExecutorService scheduler) {
+        if (overflowCapacity < 0) {
+            throw new IllegalArgumentException("Overflow capacity must not be negative: " + overflowCapacity);
+        }
+        this.serviceBusSender = serviceBusSender;
+        this.retryPolicy = retryPolicy;
+        this.overflowCapacity = overflowCapacity;
+        this.droppedMessageCallback = droppedMessageCallback;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sends the message. The returned future completes once the message is accepted by the queue, which may be
+     * after an outage, or completes exceptionally if the message is dropped. While messages are buffered new
+     * messages join the buffer behind them. Order is not guaranteed otherwise: a message waiting to retry is
+     * overtaken by messages sent meanwhile, so callers that need ordering must wait for each send to complete.
+     */
+    public CompletableFuture<Void> send(Msg msg) {
+        Pending pending = new Pending(msg);
+        boolean buffered;
+        synchronized (this) {
+            buffered = closed || !overflow.isEmpty();
+        }
+        if (buffered) {
+            buffer(pending, null);
+        } else {
+            attempt(pending);
+        }
+        return pending.result;
+    }
+
+    public synchronized int getBufferedCount() {
+        return overflow.size();
+    }
+
+    private void attempt(Pending pending) {
+        sendAsync(pending.msg).whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                pending.result.complete(null);
+                return;
+            }
+            Throwable cause = unwrap(failure);
+            if (!isTransient(cause)) {
+                drop(pending, cause);
+            } else if (++pending.attempts < retryPolicy.maxAttempts()) {
+                log.warn("Retrying message " + pending.msgId() + " after attempt " + pending.attempts + " failed: "
+                        + cause);
+                retry(pending, cause);
+            } else {
+                buffer(pending, cause);
+            }
+        });
+    }
+
+    /**
+     * Schedules another attempt after the backoff. The message is tracked while it waits so that close can drop it;
+     * whichever of the retry and close takes it out of the set settles it.
+     */
+    private void retry(Pending pending, Throwable cause) {
+        boolean isClosed;
+        synchronized (this) {
+            isClosed = closed;
+            if (!isClosed) {
+                retrying.add(pending);
+            }
+        }
+        if (isClosed) {
+            buffer(pending, cause);
+            return;
+        }
+        Runnable task = () -> {
+            if (stopRetrying(pending)) {
+                attempt(pending);
+            }
+        };
+        if (!schedule(task, retryPolicy.backoffNanos(pending.attempts)) && stopRetrying(pending)) {
+            buffer(pending, cause);
+        }
+    }
+
+    private synchronized boolean stopRetrying(Pending pending) {
+        return retrying.remove(pending);
+    }
+
+    private void buffer(Pending pending, Throwable cause) {
+        boolean full;
+        boolean isClosed;
+        boolean startDraining = false;
+        synchronized (this) {
+            isClosed = closed;
+            full = closed || overflow.size() >= overflowCapacity;
+            if (!full) {
+                overflow.add(pending);
+                if (!draining) {
+                    draining = true;
+                    startDraining = true;
+                }
+            }
+        }
+        if (full) {
+            drop(pending, new ServiceBusSendException(isClosed ? "Sender is closed" : "Overflow buffer is full",
+                    Collections.singletonList(pending.msgId()), cause));
+        } else if (startDraining) {
+            log.warn("Service Bus unavailable, buffering messages: " + cause);
+            schedule(this::drain, cause == null ? 0 : retryPolicy.maxBackoff().toNanos());
+        }
+    }
+
+    /**
+     * Sends the head of the buffer. On success the next message is sent straight away, otherwise the head is
+     * probed again after maxBackoff.
+     */
+    private void drain() {
+        Pending head;
+        synchronized (this) {
+            head = overflow.peek();
+            if (head == null || closed) {
+                draining = false;
+                return;
+            }
+            drainHead = head;
+        }
+        sendAsync(head.msg).whenComplete((ignored, failure) -> drained(head, failure));
+    }
+
+    /**
+     * Settles the head once its send finishes. After close the head is no longer in the buffer but is still
+     * settled here, by the outcome of its send, rather than by close.
+     */
+    private void drained(Pending head, Throwable failure) {
+        Throwable cause = failure == null ? null : unwrap(failure);
+        boolean retry;
+        boolean isClosed;
+        synchronized (this) {
+            drainHead = null;
+            isClosed = closed;
+            retry = !isClosed && cause != null && isTransient(cause);
+            if (!retry && !isClosed) {
+                overflow.poll();
+            }
+        }
+        if (retry) {
+            schedule(this::drain, retryPolicy.maxBackoff().toNanos());
+            return;
+        }
+        if (cause == null) {
+            head.result.complete(null);
+        } else if (isClosed && isTransient(cause)) {
+            drop(head, new ServiceBusSendException("Sender is closed", Collections.singletonList(head.msgId()),
+                    cause));
+        } else {
+            drop(head, cause);
+        }
+        schedule(this::drain, 0);
+    }
+
+    private CompletableFuture<Void> sendAsync(Msg msg) {
+        try {
+            return serviceBusSender.sendMessageAsync(msg);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean schedule(Runnable task, long delayNanos) {
+        try {
+            scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void drop(Pending pending, Throwable cause) {
+        log.error("Dropping message " + pending.msgId() + ": " + cause);
+        try {
+            droppedMessageCallback.accept(pending.msg, cause);
+        } catch (RuntimeException e) {
+            log.error("Error in dropped message callback::", e);
+        }
+        pending.result.completeExceptionally(cause);
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static boolean isTransient(Throwable cause) {
+        return (cause instanceof ServiceBusException serviceBusException && serviceBusException.getIsTransient())
+                || cause instanceof ServiceBusConnectionTimeoutException
+                || cause instanceof TimeoutException;
+    }
+
+    /**
+     * Stops retrying and drops every buffered message and every message waiting to retry. A buffered message whose
+     * send is in flight is settled by that send instead, which close waits for, up to a timeout.
+     */
+    @Override
+    public void close() {
+        List<Pending> buffered;
+        Pending inFlight;
+        synchronized (this) {
+            closed = true;
+            inFlight = drainHead;
+            buffered = new ArrayList<>(overflow);
+            buffered.remove(inFlight);
+            buffered.addAll(retrying);
+            overflow.clear();
+            retrying.clear();
+        }
+        scheduler.shutdownNow();
+        if (inFlight != null) {
+            awaitSettled(inFlight);
+        }
+        for (Pending pending : buffered) {
+            drop(pending, new ServiceBusSendException("Sender is closed",
+                    Collections.singletonList(pending.msgId()), null));
+        }
+    }
+
+    private static void awaitSettled(Pending pending) {
+        try {
+            pending.result.get(CLOSE_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Dropped by the in-flight send
+        } catch (TimeoutException e) {
+            log.warn("Closed while sending message " + pending.msgId() + ", it will be settled when the send ends");
+        }
+    }
+
+    private static final class Pending {
+
+        private final Msg msg;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private int attempts;
+
+        private Pending(Msg msg) {
+            this.msg = msg;
+        }
+
+        private String msgId() {
+            return msg == null ? null : msg.getMsgId();
+        }
+    }
+
+}
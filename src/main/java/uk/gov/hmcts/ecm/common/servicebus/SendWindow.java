@@ -0,0 +1,85 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a number of asynchronous sends in index order with at most maxInFlight outstanding at any time, so that a
+ * large list of messages does not issue all its sends at once.
+ */
+final class SendWindow {
+
+    private final int count;
+    private final int maxInFlight;
+    private final IntFunction<? extends CompletableFuture<?>> send;
+    private final Throwable[] failures;
+    private final CompletableFuture<Throwable[]> completion = new CompletableFuture<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private int next;
+
+    private SendWindow(int count, int maxInFlight, IntFunction<? extends CompletableFuture<?>> send) {
+        this.count = count;
+        this.maxInFlight = maxInFlight;
+        this.send = send;
+        this.failures = new Throwable[count];
+    }
+
+    /**
+     * Starts send(0) to send(count - 1). The returned future completes once every send has finished, with the
+     * failure of each send by index, or null where the send succeeded. A send that throws counts as failed.
+     */
+    static CompletableFuture<Throwable[]> run(int count, int maxInFlight,
+                                              IntFunction<? extends CompletableFuture<?>> send) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in flight must be positive: " + maxInFlight);
+        }
+        SendWindow window = new SendWindow(count, maxInFlight, send);
+        if (count == 0) {
+            window.completion.complete(window.failures);
+        } else {
+            window.drain();
+        }
+        return window.completion;
+    }
+
+    /**
+     * Starts sends while the window has room. Only one thread drains at a time; sends that complete
+     * synchronously request another pass instead of recursing.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (next < count && inFlight.get() < maxInFlight) {
+                inFlight.incrementAndGet();
+                start(next++);
+            }
+        } while (drainRequests.decrementAndGet() != 0);
+    }
+
+    private void start(int index) {
+        CompletableFuture<?> started;
+        try {
+            started = send.apply(index);
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                failures[index] = failure instanceof CompletionException ? failure.getCause() : failure;
+            }
+            inFlight.decrementAndGet();
+            if (completed.incrementAndGet() == count) {
+                completion.complete(failures);
+            } else {
+                drain();
+            }
+        });
+    }
+
+}
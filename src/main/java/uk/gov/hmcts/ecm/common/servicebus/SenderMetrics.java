@@ -0,0 +1,38 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+/**
+ * Receives ServiceBusSender events tagged by queue name and Msg subtype, e.g. to publish them to a metrics backend.
+ * Methods are called on the sending or completing thread, so implementations must be thread safe and must not
+ * block. A batch of mixed subtypes is tagged with Msg.
+ */
+public interface SenderMetrics {
+
+    SenderMetrics NONE = new SenderMetrics() {
+    };
+
+    /**
+     * A message body of the given size, after any compression, was built.
+     */
+    default void messageEncoded(String queueName, String msgType, int bytes) {
+    }
+
+    default void sendStarted(String queueName, String msgType) {
+    }
+
+    /**
+     * A single message send finished, successfully if failure is null.
+     */
+    default void sendCompleted(String queueName, String msgType, long latencyNanos, Throwable failure) {
+    }
+
+    default void batchStarted(String queueName, String msgType, int messages) {
+    }
+
+    /**
+     * A batch send finished, successfully if failure is null.
+     */
+    default void batchCompleted(String queueName, String msgType, int messages, long latencyNanos,
+                                Throwable failure) {
+    }
+
+}
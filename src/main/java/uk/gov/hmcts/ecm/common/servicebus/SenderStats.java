@@ -0,0 +1,147 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.primitives.TimeoutException;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusConnectionTimeoutException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory SenderMetrics keeping counters, gauges and histograms per queue name and Msg subtype.
+ */
+public class SenderStats implements SenderMetrics {
+
+    public record Tags(String queueName, String msgType) {
+    }
+
+    private final Map<Tags, Stats> stats = new ConcurrentHashMap<>();
+
+    public Stats get(String queueName, String msgType) {
+        return stats.computeIfAbsent(new Tags(queueName, msgType), tags -> new Stats());
+    }
+
+    public Map<Tags, Stats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    @Override
+    public void messageEncoded(String queueName, String msgType, int bytes) {
+        get(queueName, msgType).messageBytes.record(bytes);
+    }
+
+    @Override
+    public void sendStarted(String queueName, String msgType) {
+        get(queueName, msgType).started(1);
+    }
+
+    @Override
+    public void sendCompleted(String queueName, String msgType, long latencyNanos, Throwable failure) {
+        Stats tagged = get(queueName, msgType);
+        tagged.sendLatencyNanos.record(latencyNanos);
+        tagged.completed(1, failure);
+    }
+
+    @Override
+    public void batchStarted(String queueName, String msgType, int messages) {
+        get(queueName, msgType).started(messages);
+    }
+
+    @Override
+    public void batchCompleted(String queueName, String msgType, int messages, long latencyNanos,
+                               Throwable failure) {
+        Stats tagged = get(queueName, msgType);
+        tagged.batchLatencyNanos.record(latencyNanos);
+        tagged.batchSize.record(messages);
+        tagged.completed(messages, failure);
+    }
+
+    public static final class Stats {
+
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final AtomicLong inFlightRequests = new AtomicLong();
+        private final AtomicLong inFlightMessages = new AtomicLong();
+        private final Histogram sendLatencyNanos = new Histogram();
+        private final Histogram batchLatencyNanos = new Histogram();
+        private final Histogram messageBytes = new Histogram();
+        private final Histogram batchSize = new Histogram();
+
+        private void started(int messages) {
+            inFlightRequests.incrementAndGet();
+            inFlightMessages.addAndGet(messages);
+        }
+
+        private void completed(int messages, Throwable failure) {
+            inFlightRequests.decrementAndGet();
+            inFlightMessages.addAndGet(-messages);
+            if (failure == null) {
+                sent.add(messages);
+            } else {
+                failed.add(messages);
+                if (isTimeout(failure)) {
+                    timedOut.add(messages);
+                }
+            }
+        }
+
+        private static boolean isTimeout(Throwable failure) {
+            for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+                if (cause instanceof TimeoutException || cause instanceof ServiceBusConnectionTimeoutException
+                        || cause instanceof java.util.concurrent.TimeoutException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long getSent() {
+            return sent.sum();
+        }
+
+        /**
+         * Messages that failed to send, including timeouts.
+         */
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getTimedOut() {
+            return timedOut.sum();
+        }
+
+        /**
+         * Single sends and batches currently in flight, each counted once.
+         */
+        public long getInFlightRequests() {
+            return inFlightRequests.get();
+        }
+
+        /**
+         * Messages currently in flight, counting every message of a batch.
+         */
+        public long getInFlightMessages() {
+            return inFlightMessages.get();
+        }
+
+        public Histogram getSendLatencyNanos() {
+            return sendLatencyNanos;
+        }
+
+        public Histogram getBatchLatencyNanos() {
+            return batchLatencyNanos;
+        }
+
+        public Histogram getMessageBytes() {
+            return messageBytes;
+        }
+
+        public Histogram getBatchSize() {
+            return batchSize;
+        }
+    }
+
+}
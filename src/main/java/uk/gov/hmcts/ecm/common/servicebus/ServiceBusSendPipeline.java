@@ -0,0 +1,59 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusSendException;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends a list of messages asynchronously with at most maxInFlight sends outstanding at any time. Messages are
+ * serialized only when their send starts, so memory use is bounded by the window rather than the list size.
+ */
+@Slf4j
+public class ServiceBusSendPipeline {
+
+    private final ServiceBusSender serviceBusSender;
+    private final int maxInFlight;
+
+    public ServiceBusSendPipeline(ServiceBusSender serviceBusSender, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in flight must be positive: " + maxInFlight);
+        }
+        this.serviceBusSender = serviceBusSender;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Sends all messages in order of submission. The returned future completes once every send has finished. If
+     * any failed it completes exceptionally with a ServiceBusSendException whose cause is the failure of the
+     * earliest failed message and which lists the failed message ids in message order.
+     */
+    public CompletableFuture<Void> sendAll(List<? extends Msg> msgs) {
+        return SendWindow.run(msgs.size(), maxInFlight, index -> serviceBusSender.sendMessageAsync(msgs.get(index)))
+                .thenCompose(failures -> complete(msgs, failures));
+    }
+
+    private static CompletableFuture<Void> complete(List<? extends Msg> msgs, Throwable[] failures) {
+        List<String> failedMsgIds = new ArrayList<>();
+        Throwable firstFailure = null;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                Msg msg = msgs.get(i);
+                failedMsgIds.add(msg == null ? null : msg.getMsgId());
+                if (firstFailure == null) {
+                    firstFailure = failures[i];
+                }
+            }
+        }
+        if (firstFailure == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String message = failedMsgIds.size() + " of " + msgs.size() + " messages failed to send";
+        log.error(message + ": " + failedMsgIds);
+        return CompletableFuture.failedFuture(new ServiceBusSendException(message, failedMsgIds, firstFailure));
+    }
+
+}
@@ -1,6 +1,5 @@
 package uk.gov.hmcts.ecm.common.servicebus;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.microsoft.azure.servicebus.primitives.TimeoutException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
@@ -13,48 +12,330 @@ import uk.gov.hmcts.ecm.common.exceptions.ServiceBusConnectionTimeoutException;
 import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
 import javax.annotation.PreDestroy;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import static java.util.Collections.singletonList;
 
 public class ServiceBusSender implements AutoCloseable {
 
-    private final IQueueClient sendClient;
+    public static final String CONTENT_ENCODING_PROPERTY = "contentEncoding";
+    public static final String GZIP_CONTENT_ENCODING = "gzip";
+    static final long MAX_BATCH_BYTES = 192 * 1024;
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+    private static final int NO_COMPRESSION = -1;
+    private static final int DEFAULT_MAX_SCHEDULES_IN_FLIGHT = 64;
 
-    private final ObjectMapper objectMapper;
+    private final QueueClientPool sendClients;
+
+    private final MessageCodec messageCodec;
+
+    private final int compressionThresholdBytes;
+
+    private Function<? super Msg, String> sessionIdKey;
+
+    private Function<? super Msg, String> partitionKeyKey;
+
+    private SenderMetrics senderMetrics = SenderMetrics.NONE;
+
+    private int maxSchedulesInFlight = DEFAULT_MAX_SCHEDULES_IN_FLIGHT;
 
     public ServiceBusSender(IQueueClient queueClient, ObjectMapper objectMapper) {
-        this.sendClient = queueClient;
-        this.objectMapper = objectMapper;
+        this(queueClient, objectMapper, NO_COMPRESSION);
+    }
+
+    /**
+     * Message bodies larger than compressionThresholdBytes are sent gzip compressed, flagged by the
+     * contentEncoding property. MessageBodyRetriever decompresses them.
+     */
+    public ServiceBusSender(IQueueClient queueClient, ObjectMapper objectMapper, int compressionThresholdBytes) {
+        this(queueClient, JacksonMessageCodec.json(objectMapper), compressionThresholdBytes);
+    }
+
+    /**
+     * Encodes message bodies with the given codec and sets the message content type to the codec's, so that
+     * receivers can pick the matching codec from MessageCodecs.
+     */
+    public ServiceBusSender(IQueueClient queueClient, MessageCodec messageCodec, int compressionThresholdBytes) {
+        this(new QueueClientPool(singletonList(queueClient), QueueClientPool.Selection.ROUND_ROBIN), messageCodec,
+                compressionThresholdBytes);
+    }
+
+    /**
+     * Sends through a pool of queue clients, one AMQP connection each. Closing the sender closes every client in
+     * the pool and waits for them.
+     */
+    public ServiceBusSender(QueueClientPool queueClientPool, MessageCodec messageCodec,
+                            int compressionThresholdBytes) {
+        this.sendClients = queueClientPool;
+        this.messageCodec = messageCodec;
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    /**
+     * Sets the session id of each message from the given key, e.g. MessageKey.MULTIPLE_REF, so session consumers
+     * process different keys in parallel and messages with the same key in order. Takes precedence over the
+     * partition key, as the broker partitions session messages by session id.
+     */
+    public void setSessionIdKey(Function<? super Msg, String> sessionIdKey) {
+        this.sessionIdKey = sessionIdKey;
+    }
+
+    /**
+     * Sets the partition key of each message from the given key, keeping messages with the same key on one
+     * partition of a partitioned queue.
+     */
+    public void setPartitionKeyKey(Function<? super Msg, String> partitionKeyKey) {
+        this.partitionKeyKey = partitionKeyKey;
+    }
+
+    /**
+     * Reports send latencies, message sizes, in-flight sends, failures and batch sizes, tagged by queue name and Msg
+     * subtype, e.g. to a SenderStats.
+     */
+    public void setSenderMetrics(SenderMetrics senderMetrics) {
+        this.senderMetrics = senderMetrics;
+    }
+
+    /**
+     * Sets how many schedule requests scheduleOverWindowAsync and scheduleAtRateAsync keep outstanding at a time.
+     */
+    public void setMaxSchedulesInFlight(int maxSchedulesInFlight) {
+        if (maxSchedulesInFlight <= 0) {
+            throw new IllegalArgumentException("Max schedules in flight must be positive: " + maxSchedulesInFlight);
+        }
+        this.maxSchedulesInFlight = maxSchedulesInFlight;
     }
 
     public CompletableFuture<Void> sendMessageAsync(Msg msg) {
         Message busMessage = mapToBusMessage(msg);
-        return sendClient.sendAsync(busMessage);
+        return recordSend(msg, () -> sendClients.sendAsync(busMessage));
     }
 
     public void sendMessage(Msg msg) {
         Message busMessage = mapToBusMessage(msg);
+        String msgType = msg.getClass().getSimpleName();
+        senderMetrics.sendStarted(sendClients.getQueueName(), msgType);
+        long start = System.nanoTime();
+        Exception failure = null;
         try {
-            sendClient.send(busMessage);
+            sendClients.send(busMessage);
         } catch (InterruptedException e) {
+            failure = e;
             Thread.currentThread().interrupt();
             throw new InvalidMessageException("Unable to send message", e);
         } catch (TimeoutException e) {
+            failure = e;
             throw new ServiceBusConnectionTimeoutException(
                 "Service Bus connection timed out while sending the message. Message ID: " + msg.getMsgId(),
                 e
             );
         } catch (ServiceBusException e) {
+            failure = e;
             throw new InvalidMessageException("Unable to send message", e);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            senderMetrics.sendCompleted(sendClients.getQueueName(), msgType, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Schedules the message to be enqueued at the given time. The returned future completes with the sequence
+     * number of the scheduled message.
+     */
+    public CompletableFuture<Long> scheduleMessageAsync(Msg msg, Instant enqueueTime) {
+        Message busMessage = mapToBusMessage(msg);
+        return recordSend(msg, () -> sendClients.scheduleMessageAsync(busMessage, enqueueTime));
+    }
+
+    /**
+     * Spreads the messages evenly over the window starting at start, so a large set of messages reaches consumers
+     * at a steady rate instead of as one burst. Enqueue times are kept by the broker, so the sender only needs to
+     * stay alive until the returned future completes, which it does normally once every message has been scheduled.
+     * At most maxSchedulesInFlight schedule requests are outstanding at a time.
+     */
+    public CompletableFuture<BatchSendResult> scheduleOverWindowAsync(List<? extends Msg> msgs, Instant start,
+                                                                      Duration window) {
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("Window must not be negative: " + window);
+        }
+        Duration interval = msgs.isEmpty() ? Duration.ZERO : window.dividedBy(msgs.size());
+        return scheduleAtIntervalAsync(msgs, start, interval);
+    }
+
+    /**
+     * Schedules the messages starting at start at messagesPerSecond.
+     */
+    public CompletableFuture<BatchSendResult> scheduleAtRateAsync(List<? extends Msg> msgs, Instant start,
+                                                                  double messagesPerSecond) {
+        if (!(messagesPerSecond > 0)) {
+            throw new IllegalArgumentException("Messages per second must be positive: " + messagesPerSecond);
         }
+        Duration interval = Duration.ofNanos(Math.round(Duration.ofSeconds(1).toNanos() / messagesPerSecond));
+        return scheduleAtIntervalAsync(msgs, start, interval);
+    }
+
+    private CompletableFuture<BatchSendResult> scheduleAtIntervalAsync(List<? extends Msg> msgs, Instant start,
+                                                                       Duration interval) {
+        return SendWindow.run(msgs.size(), maxSchedulesInFlight,
+                index -> scheduleMessageAsync(msgs.get(index), start.plus(interval.multipliedBy(index))))
+                .thenApply(failures -> {
+                    BatchSendResult result = new BatchSendResult();
+                    for (int i = 0; i < failures.length; i++) {
+                        String msgId = msgs.get(i) == null ? null : msgs.get(i).getMsgId();
+                        if (failures[i] == null) {
+                            result.addSent(msgId);
+                        } else {
+                            result.addFailure(msgId, failures[i]);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Sends the messages in as few size-limited batches as possible and waits for all of them to complete.
+     * Consecutive messages share a batch only if they have the same session id and partition key.
+     */
+    public BatchSendResult sendBatch(List<? extends Msg> msgs) {
+        return sendBatchAsync(msgs).join();
+    }
+
+    /**
+     * Sends the messages in as few size-limited batches as possible. The returned future always completes normally;
+     * messages that could not be serialized or whose batch was rejected are reported in the result by message id.
+     */
+    public CompletableFuture<BatchSendResult> sendBatchAsync(List<? extends Msg> msgs) {
+        BatchSendResult invalidMsgs = new BatchSendResult();
+        List<List<Message>> batches = new ArrayList<>();
+        List<Message> batch = new ArrayList<>();
+        long batchBytes = 0;
+        String batchKey = null;
+        for (Msg msg : msgs) {
+            Message busMessage;
+            try {
+                busMessage = mapToBusMessage(msg);
+            } catch (InvalidMessageException e) {
+                invalidMsgs.addFailure(msg == null ? null : msg.getMsgId(), e);
+                continue;
+            }
+            long messageBytes = estimateSize(busMessage);
+            String messageKey = routingKey(busMessage);
+            if (!batch.isEmpty()
+                    && (batchBytes + messageBytes > MAX_BATCH_BYTES || !Objects.equals(batchKey, messageKey))) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batchKey = messageKey;
+            batch.add(busMessage);
+            batchBytes += messageBytes;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        String msgType = batchMsgType(msgs);
+        List<CompletableFuture<BatchSendResult>> sends = new ArrayList<>(batches.size());
+        for (List<Message> busMessages : batches) {
+            sends.add(sendBusMessagesAsync(busMessages, msgType));
+        }
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            BatchSendResult result = new BatchSendResult();
+            result.addAll(invalidMsgs);
+            sends.forEach(send -> result.addAll(send.join()));
+            return result;
+        });
+    }
+
+    private CompletableFuture<BatchSendResult> sendBusMessagesAsync(List<Message> busMessages, String msgType) {
+        String queueName = sendClients.getQueueName();
+        senderMetrics.batchStarted(queueName, msgType, busMessages.size());
+        long start = System.nanoTime();
+        CompletableFuture<Void> send;
+        try {
+            send = sendClients.sendBatchAsync(busMessages);
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+        return send.handle((ignored, failure) -> {
+            senderMetrics.batchCompleted(queueName, msgType, busMessages.size(), System.nanoTime() - start, failure);
+            BatchSendResult result = new BatchSendResult();
+            for (Message busMessage : busMessages) {
+                if (failure == null) {
+                    result.addSent(busMessage.getMessageId());
+                } else {
+                    result.addFailure(busMessage.getMessageId(),
+                            failure instanceof CompletionException ? failure.getCause() : failure);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Starts the clock before issuing the send, so the latency includes the time spent issuing it.
+     */
+    private <T> CompletableFuture<T> recordSend(Msg msg, Supplier<CompletableFuture<T>> send) {
+        String queueName = sendClients.getQueueName();
+        String msgType = msg.getClass().getSimpleName();
+        senderMetrics.sendStarted(queueName, msgType);
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = send.get();
+        } catch (RuntimeException e) {
+            senderMetrics.sendCompleted(queueName, msgType, System.nanoTime() - start, e);
+            throw e;
+        }
+        return result.whenComplete((ignored, failure) ->
+                senderMetrics.sendCompleted(queueName, msgType, System.nanoTime() - start, failure));
+    }
+
+    /**
+     * The subtype shared by all the messages, or Msg if they are of different subtypes.
+     */
+    private static String batchMsgType(List<? extends Msg> msgs) {
+        Class<?> msgType = null;
+        for (Msg msg : msgs) {
+            if (msg != null && msgType == null) {
+                msgType = msg.getClass();
+            } else if (msg != null && msgType != msg.getClass()) {
+                return Msg.class.getSimpleName();
+            }
+        }
+        return msgType == null ? Msg.class.getSimpleName() : msgType.getSimpleName();
+    }
+
+    private static String routingKey(Message busMessage) {
+        return busMessage.getSessionId() != null ? busMessage.getSessionId() : busMessage.getPartitionKey();
+    }
+
+    private static long estimateSize(Message busMessage) {
+        long bodyBytes = 0;
+        for (byte[] segment : busMessage.getMessageBody().getBinaryData()) {
+            bodyBytes += segment == null ? 0 : segment.length;
+        }
+        return bodyBytes + busMessage.getMessageId().length() + MESSAGE_OVERHEAD_BYTES;
     }
 
     @Override
     public void close() {
-        if (sendClient != null) {
-            sendClient.closeAsync();
-        }
+        sendClients.close();
     }
 
     Message mapToBusMessage(Msg msg) {
@@ -65,22 +346,42 @@ public class ServiceBusSender implements AutoCloseable {
             throw new InvalidMessageException("Msg Id == null");
         }
         Message busMessage = new Message();
-        busMessage.setContentType("application/json");
+        busMessage.setContentType(messageCodec.getContentType());
         busMessage.setMessageId(msg.getMsgId());
-        busMessage.setMessageBody(getMsgBodyInBytes(msg));
+        byte[] body = messageCodec.encode(msg);
+        if (shouldCompress(body)) {
+            byte[] compressed = compress(body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                busMessage.setProperties(new HashMap<>(Map.of(CONTENT_ENCODING_PROPERTY, GZIP_CONTENT_ENCODING)));
+            }
+        }
+        if (body != null) {
+            senderMetrics.messageEncoded(sendClients.getQueueName(), msg.getClass().getSimpleName(), body.length);
+        }
+        busMessage.setMessageBody(MessageBody.fromBinaryData(singletonList(body)));
         busMessage.setLabel(msg.getJurisdiction());
+        if (sessionIdKey != null) {
+            busMessage.setSessionId(sessionIdKey.apply(msg));
+        } else if (partitionKeyKey != null) {
+            busMessage.setPartitionKey(partitionKeyKey.apply(msg));
+        }
 
         return busMessage;
     }
 
-    private MessageBody getMsgBodyInBytes(Msg message) {
-        try {
-            return MessageBody.fromBinaryData(singletonList(
-                objectMapper.writeValueAsBytes(message) //default encoding is UTF-8
-            ));
-        } catch (JsonProcessingException e) {
-            throw new InvalidMessageException("Unable to create message body in json format", e);
+    private boolean shouldCompress(byte[] body) {
+        return compressionThresholdBytes != NO_COMPRESSION && body != null && body.length > compressionThresholdBytes;
+    }
+
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new InvalidMessageException("Unable to compress message body", e);
         }
+        return compressed.toByteArray();
     }
 
     @PreDestroy
@@ -3,6 +3,7 @@ package uk.gov.hmcts.ecm.common.client;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -13,7 +14,10 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
+import uk.gov.hmcts.ecm.common.exceptions.CaseRetrievalException;
+import uk.gov.hmcts.ecm.common.helpers.ESHelper;
 import uk.gov.hmcts.ecm.common.idam.models.UserDetails;
 import uk.gov.hmcts.ecm.common.model.bulk.BulkCaseSearchResult;
 import uk.gov.hmcts.ecm.common.model.bulk.BulkData;
@@ -33,6 +37,8 @@ import uk.gov.hmcts.ecm.common.model.multiples.MultipleCaseSearchResult;
 import uk.gov.hmcts.ecm.common.model.multiples.MultipleData;
 import uk.gov.hmcts.ecm.common.model.multiples.MultipleDetails;
 import uk.gov.hmcts.ecm.common.model.multiples.SubmitMultipleEvent;
+import uk.gov.hmcts.ecm.common.model.reports.aggregations.AggregationResult;
+import uk.gov.hmcts.ecm.common.model.reports.aggregations.ReportAggregationSearchResult;
 import uk.gov.hmcts.ecm.common.model.reports.casesawaitingjudgment.CasesAwaitingJudgmentSearchResult;
 import uk.gov.hmcts.ecm.common.model.reports.casesawaitingjudgment.CasesAwaitingJudgmentSubmitEvent;
 import uk.gov.hmcts.ecm.common.model.reports.claimsbyhearingvenue.ClaimsByHearingVenueCaseData;
@@ -57,15 +63,26 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static uk.gov.hmcts.ecm.common.helpers.ESHelper.GROUP_BY_AGGREGATION;
+import static uk.gov.hmcts.ecm.common.helpers.ESHelper.LISTING_ABERDEEN_VENUE_FIELD_NAME;
+import static uk.gov.hmcts.ecm.common.helpers.ESHelper.LISTING_GLASGOW_VENUE_FIELD_NAME;
 import static uk.gov.hmcts.ecm.common.helpers.ESHelper.LISTING_VENUE_FIELD_NAME;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -283,12 +300,20 @@ public class CcdClientTest {
         submitEvent1.setCaseData(caseData1);
         CaseSearchResult caseSearchResult = new CaseSearchResult(2L, Arrays.asList(submitEvent, submitEvent1));
         ResponseEntity<CaseSearchResult> responseEntity = new ResponseEntity<>(caseSearchResult, HttpStatus.OK);
+        String countQuery = "{\"size\":0,\"query\":{\"terms\":{\"data.ethosCaseReference.keyword\":["
+                + "\"2420117/2019\",\"2420118/2019\"],\"boost\":1.0}},\"track_total_hits\":true}";
+        HttpEntity<String> countHttpEntity = new HttpEntity<>(countQuery, creatBuildHeaders());
+        ResponseEntity<CaseSearchResult> countResponseEntity =
+                new ResponseEntity<>(new CaseSearchResult(2L, Collections.emptyList()), HttpStatus.OK);
         when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(countHttpEntity),
+                eq(CaseSearchResult.class))).thenReturn(countResponseEntity);
         when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity),
                 eq(CaseSearchResult.class))).thenReturn(responseEntity);
         ccdClient.retrieveCasesElasticSearchForCreation("authToken",
                 caseDetails.getCaseTypeId(),
                 new ArrayList<>(Arrays.asList("2420117/2019", "2420118/2019")), "ET1 Online");
+        verify(restTemplate).exchange(eq(uri), eq(HttpMethod.POST), eq(countHttpEntity), eq(CaseSearchResult.class));
         verify(restTemplate).exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity), eq(CaseSearchResult.class));
         verifyNoMoreInteractions(restTemplate);
     }
@@ -422,6 +447,34 @@ public class CcdClientTest {
         verifyNoMoreInteractions(restTemplate);
     }
 
+    @Test
+    public void retrieveCasesVenuesAndDateElasticSearch() throws IOException {
+        SubmitEvent submitEvent = new SubmitEvent();
+        submitEvent.setCaseId(1L);
+        SubmitEvent duplicateSubmitEvent = new SubmitEvent();
+        duplicateSubmitEvent.setCaseId(1L);
+        SubmitEvent otherSubmitEvent = new SubmitEvent();
+        otherSubmitEvent.setCaseId(2L);
+        ResponseEntity<CaseSearchResult> glasgowResponse = new ResponseEntity<>(
+                new CaseSearchResult(1L, Collections.singletonList(submitEvent)), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> aberdeenResponse = new ResponseEntity<>(
+                new CaseSearchResult(2L, Arrays.asList(duplicateSubmitEvent, otherSubmitEvent)), HttpStatus.OK);
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), any(HttpEntity.class), eq(CaseSearchResult.class)))
+                .thenReturn(glasgowResponse, aberdeenResponse);
+        Map<String, String> venuesToSearch = new LinkedHashMap<>();
+        venuesToSearch.put(LISTING_GLASGOW_VENUE_FIELD_NAME, "Glasgow");
+        venuesToSearch.put(LISTING_ABERDEEN_VENUE_FIELD_NAME, "Aberdeen");
+
+        List<SubmitEvent> results = ccdClient.retrieveCasesVenuesAndDateElasticSearch("authToken",
+                caseDetails.getCaseTypeId(), "2019-09-23", "2019-09-24", venuesToSearch, Runnable::run);
+
+        assertEquals(2, results.size());
+        verify(restTemplate, times(2)).exchange(eq(uri), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(CaseSearchResult.class));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
     @Test
     public void retrieveCasesAllVenuesAndSingleDateElasticSearch() throws IOException {
         String jsonQuery = "{\"size\":10000,\"query\":{\"bool\":{\"filter\":[{\"range\""
@@ -738,11 +791,19 @@ public class CcdClientTest {
                 new MultipleCaseSearchResult(1L, Collections.singletonList(submitMultipleEvent));
         ResponseEntity<MultipleCaseSearchResult> responseEntity = new ResponseEntity<>(multipleCaseSearchResult,
                 HttpStatus.OK);
+        String countQuery = "{\"size\":0,\"query\":{\"terms\":{\"data.multipleReference.keyword\""
+                + ":[\"2400001/2020\"],\"boost\":1.0}},\"track_total_hits\":true}";
+        HttpEntity<String> countHttpEntity = new HttpEntity<>(countQuery, creatBuildHeaders());
+        ResponseEntity<CaseSearchResult> countResponseEntity =
+                new ResponseEntity<>(new CaseSearchResult(1L, Collections.emptyList()), HttpStatus.OK);
         when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(countHttpEntity), eq(CaseSearchResult.class)))
+                .thenReturn(countResponseEntity);
         when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity), eq(MultipleCaseSearchResult.class)))
                 .thenReturn(responseEntity);
         ccdClient.retrieveMultipleCasesElasticSearchWithRetries("authToken",
                 caseDetails.getCaseTypeId(), "2400001/2020");
+        verify(restTemplate).exchange(eq(uri), eq(HttpMethod.POST), eq(countHttpEntity), eq(CaseSearchResult.class));
         verify(restTemplate).exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity),
                 eq(MultipleCaseSearchResult.class));
         verifyNoMoreInteractions(restTemplate);
@@ -905,6 +966,152 @@ public class CcdClientTest {
         verifyNoMoreInteractions(restTemplate);
     }
 
+    @Test
+    public void testReportAggregationSearch() throws IOException {
+        var elasticSearchQuery = "{\"size\":0,\"query\": {\"match_all\":{} }}";
+        var httpEntity = new HttpEntity<>(elasticSearchQuery, creatBuildHeaders());
+        var searchResult = new ReportAggregationSearchResult(2L, null,
+                Collections.singletonMap(GROUP_BY_AGGREGATION, new AggregationResult()));
+        var responseEntity = new ResponseEntity<>(searchResult, HttpStatus.OK);
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(uri, HttpMethod.POST, httpEntity, ReportAggregationSearchResult.class))
+                .thenReturn(responseEntity);
+        var result = ccdClient.reportAggregationSearch("authToken", caseDetails.getCaseTypeId(),
+                elasticSearchQuery);
+        assertEquals(Long.valueOf(2), result.getTotal());
+        assertEquals(0, result.getAggregation(GROUP_BY_AGGREGATION).getBucketCounts().size());
+        verify(restTemplate).exchange(uri, HttpMethod.POST, httpEntity, ReportAggregationSearchResult.class);
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    public void reportAggregationSearchReadsCcdSearchResponse() throws IOException {
+        String response = "{\"total\":3,\"cases\":[],"
+                + "\"case_types_results\":[{\"total\":3,\"case_type_id\":\"ET_EnglandWales\"}],"
+                + "\"aggregations\":{\"group_by\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+                + "\"buckets\":[{\"key\":\"Single\",\"doc_count\":2},{\"key\":\"Multiple\",\"doc_count\":1}]}}}";
+        RestTemplate ccdRestTemplate = new RestTemplate();
+        MockRestServiceServer ccd = MockRestServiceServer.bindTo(ccdRestTemplate).build();
+        ccd.expect(requestTo(uri)).andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess(response, MediaType.APPLICATION_JSON));
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(authTokenGenerator.generate()).thenReturn("serviceToken");
+        CcdClient client = new CcdClient(ccdRestTemplate, userService, caseDataBuilder, ccdClientConfig,
+                authTokenGenerator);
+
+        var result = client.reportAggregationSearch("authToken", caseDetails.getCaseTypeId(),
+                ESHelper.getTermsAggregationQuery("2021-07-01T00:00:00.000", "2021-07-31T23:59:59.000",
+                        BROUGHT_FORWARD_REPORT, ESHelper.CASE_TYPE_FIELD_NAME, null));
+
+        assertEquals(Long.valueOf(3), result.getTotal());
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("Single", 2L);
+        expected.put("Multiple", 1L);
+        assertEquals(expected, result.getAggregation(GROUP_BY_AGGREGATION).getBucketCounts());
+        ccd.verify();
+    }
+
+    @Test(expected = CaseRetrievalException.class)
+    public void reportAggregationSearchFailsWhenCcdDropsAggregations() throws IOException {
+        String response = "{\"total\":3,\"cases\":[],"
+                + "\"case_types_results\":[{\"total\":3,\"case_type_id\":\"ET_EnglandWales\"}]}";
+        RestTemplate ccdRestTemplate = new RestTemplate();
+        MockRestServiceServer ccd = MockRestServiceServer.bindTo(ccdRestTemplate).build();
+        ccd.expect(requestTo(uri)).andRespond(withSuccess(response, MediaType.APPLICATION_JSON));
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(authTokenGenerator.generate()).thenReturn("serviceToken");
+        CcdClient client = new CcdClient(ccdRestTemplate, userService, caseDataBuilder, ccdClientConfig,
+                authTokenGenerator);
+
+        client.reportAggregationSearch("authToken", caseDetails.getCaseTypeId(),
+                "{\"size\":0,\"query\":{\"match_all\":{}},\"aggs\":{}}");
+    }
+
+    @Test
+    public void countElasticSearch() throws IOException {
+        String countQuery = "{\"size\":0,\"query\":{\"terms\":{\"data.ethosCaseReference.keyword\":["
+                + "\"2420117/2019\"],\"boost\":1.0}},\"track_total_hits\":true}";
+        HttpEntity<String> httpEntity = new HttpEntity<>(countQuery, creatBuildHeaders());
+        ResponseEntity<CaseSearchResult> responseEntity =
+                new ResponseEntity<>(new CaseSearchResult(3L, Collections.emptyList()), HttpStatus.OK);
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity), eq(CaseSearchResult.class)))
+                .thenReturn(responseEntity);
+
+        long total = ccdClient.countElasticSearch("authToken", caseDetails.getCaseTypeId(),
+                ESHelper.getSearchQuery(Collections.singletonList("2420117/2019")));
+
+        assertEquals(3L, total);
+        verify(restTemplate).exchange(eq(uri), eq(HttpMethod.POST), eq(httpEntity), eq(CaseSearchResult.class));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    public void retrieveCasesGenericReportElasticSearchPartitioned() throws IOException {
+        SubmitEvent submitEvent = new SubmitEvent();
+        submitEvent.setCaseId(1L);
+        SubmitEvent duplicateSubmitEvent = new SubmitEvent();
+        duplicateSubmitEvent.setCaseId(1L);
+        SubmitEvent otherSubmitEvent = new SubmitEvent();
+        otherSubmitEvent.setCaseId(2L);
+        ResponseEntity<CaseSearchResult> countResponse =
+                new ResponseEntity<>(new CaseSearchResult(6000L, Collections.emptyList()), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> firstHalfCount =
+                new ResponseEntity<>(new CaseSearchResult(2L, Collections.emptyList()), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> secondHalfCount =
+                new ResponseEntity<>(new CaseSearchResult(1L, Collections.emptyList()), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> firstHalfCases = new ResponseEntity<>(
+                new CaseSearchResult(2L, Arrays.asList(submitEvent, otherSubmitEvent)), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> secondHalfCases = new ResponseEntity<>(
+                new CaseSearchResult(1L, Collections.singletonList(duplicateSubmitEvent)), HttpStatus.OK);
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), any(HttpEntity.class), eq(CaseSearchResult.class)))
+                .thenReturn(countResponse, firstHalfCount, secondHalfCount, firstHalfCases, secondHalfCases);
+
+        List<SubmitEvent> results = ccdClient.retrieveCasesGenericReportElasticSearchPartitioned("authToken",
+                caseDetails.getCaseTypeId(), "2019-09-01", "2019-09-30", BROUGHT_FORWARD_REPORT, Runnable::run);
+
+        assertEquals(2, results.size());
+        verify(restTemplate, times(5)).exchange(eq(uri), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(CaseSearchResult.class));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    public void retrieveCasesGenericReportElasticSearchPartitionedPagesThroughOversizedDay() throws IOException {
+        List<SubmitEvent> firstPage = new ArrayList<>();
+        for (long caseId = 1; caseId <= MAX_ES_SIZE; caseId++) {
+            SubmitEvent submitEvent = new SubmitEvent();
+            submitEvent.setCaseId(caseId);
+            firstPage.add(submitEvent);
+        }
+        SubmitEvent lastSubmitEvent = new SubmitEvent();
+        lastSubmitEvent.setCaseId(MAX_ES_SIZE + 1L);
+        ResponseEntity<CaseSearchResult> countResponse = new ResponseEntity<>(
+                new CaseSearchResult(MAX_ES_SIZE + 1L, Collections.emptyList()), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> firstPageResponse = new ResponseEntity<>(
+                new CaseSearchResult(MAX_ES_SIZE + 1L, firstPage), HttpStatus.OK);
+        ResponseEntity<CaseSearchResult> lastPageResponse = new ResponseEntity<>(
+                new CaseSearchResult(MAX_ES_SIZE + 1L, Collections.singletonList(lastSubmitEvent)), HttpStatus.OK);
+        when(ccdClientConfig.buildRetrieveCasesUrlElasticSearch(any())).thenReturn(uri);
+        when(restTemplate.exchange(eq(uri), eq(HttpMethod.POST), any(HttpEntity.class), eq(CaseSearchResult.class)))
+                .thenReturn(countResponse, firstPageResponse, lastPageResponse);
+
+        List<SubmitEvent> results = ccdClient.retrieveCasesGenericReportElasticSearchPartitioned("authToken",
+                caseDetails.getCaseTypeId(), "2019-09-01", "2019-09-01", BROUGHT_FORWARD_REPORT, Runnable::run);
+
+        assertEquals(MAX_ES_SIZE + 1, results.size());
+        ArgumentCaptor<HttpEntity> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(3)).exchange(eq(uri), eq(HttpMethod.POST), requests.capture(),
+                eq(CaseSearchResult.class));
+        String firstPageQuery = (String) requests.getAllValues().get(1).getBody();
+        String lastPageQuery = (String) requests.getAllValues().get(2).getBody();
+        assertTrue(firstPageQuery.contains("\"sort\":[{\"reference.keyword\":\"asc\"}]"));
+        assertFalse(firstPageQuery.contains("search_after"));
+        assertTrue(lastPageQuery.contains("\"search_after\":[\"" + MAX_ES_SIZE + "\"]"));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
     @Test
     public void startDisposeEventForCase() throws IOException {
         HttpEntity<Object> httpEntity = new HttpEntity<>(creatBuildHeaders());
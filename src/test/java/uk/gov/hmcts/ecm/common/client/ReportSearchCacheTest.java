@@ -0,0 +1,115 @@
+package uk.gov.hmcts.ecm.common.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class ReportSearchCacheTest {
+
+    private static final String QUERY = "{\"size\":10000,\"query\":{\"match_all\":{}}}";
+    private static final String AUTH_TOKEN = "Bearer user-token";
+
+    @Test
+    public void identicalQueriesAreServedFromCache() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024 * 1024, Duration.ofMinutes(5));
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+        String result = cache.get("ET_EnglandWales", "{ \"size\": 10000, \"query\": {\"match_all\": {}}}",
+                String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+
+        assertEquals("result1", result);
+        assertEquals(1, searches.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void differentCaseTypesAreCachedSeparately() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024 * 1024, Duration.ofMinutes(5));
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+        cache.get("ET_Scotland", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+
+        assertEquals(2, searches.get());
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void differentUsersAreCachedSeparately() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024 * 1024, Duration.ofMinutes(5));
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+        String result = cache.get("ET_EnglandWales", QUERY, String.class, "Bearer other-token",
+                () -> "result" + searches.incrementAndGet());
+
+        assertEquals("result2", result);
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void hitsReturnCopiesOfCachedResult() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024 * 1024, Duration.ofMinutes(5));
+        List<String> cases = new ArrayList<>(List.of("4150001/2020"));
+        Map<String, Object> searchResult = new HashMap<>(Map.of("total", 1, "cases", cases));
+
+        cache.get("ET_EnglandWales", QUERY, Map.class, AUTH_TOKEN, () -> searchResult);
+        cases.add("4150002/2020");
+        Map<?, ?> first = cache.get("ET_EnglandWales", QUERY, Map.class, AUTH_TOKEN, () -> null);
+        ((List<?>) first.get("cases")).clear();
+        Map<?, ?> second = cache.get("ET_EnglandWales", QUERY, Map.class, AUTH_TOKEN, () -> null);
+
+        assertEquals(List.of("4150001/2020"), second.get("cases"));
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void sizeIsEstimatedFromCaseCount() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024, Duration.ofMinutes(5)).withAverageCaseSize(100);
+
+        cache.get("ET_EnglandWales", QUERY, Map.class, AUTH_TOKEN,
+                () -> Map.of("total", 3, "cases", List.of("1", "2", "3")));
+
+        assertEquals(300, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void zeroTtlDisablesCachingForResultType() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(1024 * 1024, Duration.ofMinutes(5))
+                .withTtl(String.class, Duration.ZERO);
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "result" + searches.incrementAndGet());
+
+        assertEquals(2, searches.get());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedOverSizeLimit() throws IOException {
+        ReportSearchCache cache = new ReportSearchCache(25, Duration.ofMinutes(5)).withAverageCaseSize(10);
+
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "0123456789");
+        cache.get("ET_Scotland", QUERY, String.class, AUTH_TOKEN, () -> "0123456789");
+        cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "unused");
+        cache.get("ET_Other", QUERY, String.class, AUTH_TOKEN, () -> "0123456789");
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("0123456789", cache.get("ET_EnglandWales", QUERY, String.class, AUTH_TOKEN, () -> "reloaded"));
+        assertEquals("reloaded", cache.get("ET_Scotland", QUERY, String.class, AUTH_TOKEN, () -> "reloaded"));
+    }
+
+}
@@ -0,0 +1,91 @@
+package uk.gov.hmcts.ecm.common.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Test
+    public void concurrentIdenticalRequestsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread leader = new Thread(() -> execute(() -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return result;
+        }, new AtomicReference<>()));
+        Thread follower = new Thread(() -> execute(() -> {
+            calls.incrementAndGet();
+            return new Object();
+        }, followerResult));
+
+        leader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        follower.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (follower.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        leader.join(5000);
+        follower.join(5000);
+
+        assertEquals(1, calls.get());
+        assertSame(result, followerResult.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    @Test
+    public void differentUserScopesAreNotShared() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        requestCoalescer.execute("search", "caseType", "query", "token1", calls::incrementAndGet);
+        requestCoalescer.execute("search", "caseType", "query", "token2", calls::incrementAndGet);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void failureIsPropagatedAndKeyReleased() throws IOException {
+        try {
+            requestCoalescer.execute("retrieveCase", "caseType", "1", "token", () -> {
+                throw new IOException("failed");
+            });
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(0, requestCoalescer.inFlightCount());
+        assertEquals("ok", requestCoalescer.execute("retrieveCase", "caseType", "1", "token", () -> "ok"));
+    }
+
+    private void execute(Callable<Object> call, AtomicReference<Object> result) {
+        try {
+            result.set(requestCoalescer.execute("search", "caseType", "query", "token", () -> {
+                try {
+                    return call.call();
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
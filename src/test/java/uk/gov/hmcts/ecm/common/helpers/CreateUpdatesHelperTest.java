@@ -1,14 +1,20 @@
 package uk.gov.hmcts.ecm.common.helpers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesDto;
 import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesMsg;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.CreationDataModel;
+import uk.gov.hmcts.ecm.common.servicebus.JacksonMessageCodec;
+import uk.gov.hmcts.ecm.common.servicebus.MessageCodec;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.CHUNK_MESSAGE_BYTES;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.CHUNK_MESSAGE_SIZE;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.SCOTLAND_BULK_CASE_TYPE_ID;
 
 public class CreateUpdatesHelperTest {
@@ -16,6 +22,7 @@ public class CreateUpdatesHelperTest {
     private CreateUpdatesDto createUpdatesDto;
     private CreationDataModel creationDataModel;
     private List<String> ethosCaseRefCollection;
+    private final MessageCodec messageCodec = JacksonMessageCodec.json(new ObjectMapper());
 
     @Before
     public void setUp() {
@@ -32,6 +39,60 @@ public class CreateUpdatesHelperTest {
         assertEquals(3, createUpdatesMsgList.size());
     }
 
+    @Test
+    public void generateUpdateCaseMsgForCreationBySize() {
+        List<CreateUpdatesMsg> createUpdatesMsgList = CreateUpdatesHelper.getCreateUpdatesMessagesCollectionBySize(
+                createUpdatesDto, creationDataModel, CHUNK_MESSAGE_SIZE, CHUNK_MESSAGE_BYTES,
+                String.valueOf(ethosCaseRefCollection.size()), messageCodec);
+        assertEquals(1, createUpdatesMsgList.size());
+        assertEquals(ethosCaseRefCollection, createUpdatesMsgList.get(0).getEthosCaseRefCollection());
+    }
+
+    @Test
+    public void generateUpdateCaseMsgForCreationBySizeCappedByCount() {
+        List<CreateUpdatesMsg> createUpdatesMsgList = CreateUpdatesHelper.getCreateUpdatesMessagesCollectionBySize(
+                createUpdatesDto, creationDataModel, 2, CHUNK_MESSAGE_BYTES,
+                String.valueOf(ethosCaseRefCollection.size()), messageCodec);
+        assertEquals(3, createUpdatesMsgList.size());
+        assertEquals(List.of("4150005/2020"), createUpdatesMsgList.get(2).getEthosCaseRefCollection());
+    }
+
+    @Test
+    public void generateUpdateCaseMsgForCreationBySizeOverBudget() {
+        List<CreateUpdatesMsg> createUpdatesMsgList = CreateUpdatesHelper.getCreateUpdatesMessagesCollectionBySize(
+                createUpdatesDto, creationDataModel, CHUNK_MESSAGE_SIZE, 1,
+                String.valueOf(ethosCaseRefCollection.size()), messageCodec);
+        assertEquals(ethosCaseRefCollection.size(), createUpdatesMsgList.size());
+        assertEquals(List.of("4150005/2020"), createUpdatesMsgList.get(4).getEthosCaseRefCollection());
+    }
+
+    @Test
+    public void generateUpdateCaseMsgWithIdsFromOperationId() {
+        createUpdatesDto.setOperationId("operation-1");
+        List<CreateUpdatesMsg> first = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                createUpdatesDto, creationDataModel, 2, String.valueOf(ethosCaseRefCollection.size()));
+        List<CreateUpdatesMsg> retried = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                createUpdatesDto, creationDataModel, 2, String.valueOf(ethosCaseRefCollection.size()));
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getMsgId(), retried.get(i).getMsgId());
+            assertEquals(CreateUpdatesHelper.getMsgId("operation-1", i), first.get(i).getMsgId());
+        }
+        assertNotEquals(first.get(0).getMsgId(), first.get(1).getMsgId());
+
+        createUpdatesDto.setOperationId("operation-2");
+        List<CreateUpdatesMsg> repeated = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                createUpdatesDto, creationDataModel, 2, String.valueOf(ethosCaseRefCollection.size()));
+        assertNotEquals(first.get(0).getMsgId(), repeated.get(0).getMsgId());
+    }
+
+    @Test
+    public void generateUpdateCaseMsgWithoutOperationIdHasRandomIds() {
+        List<CreateUpdatesMsg> first = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                createUpdatesDto, creationDataModel, 2, String.valueOf(ethosCaseRefCollection.size()));
+        List<CreateUpdatesMsg> second = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                createUpdatesDto, creationDataModel, 2, String.valueOf(ethosCaseRefCollection.size()));
+        assertNotEquals(first.get(0).getMsgId(), second.get(0).getMsgId());
+    }
 
     private CreateUpdatesDto getCreateUpdatesDto(List<String> ethosCaseRefCollection) {
         return CreateUpdatesDto.builder()
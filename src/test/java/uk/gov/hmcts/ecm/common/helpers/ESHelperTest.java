@@ -0,0 +1,116 @@
+package uk.gov.hmcts.ecm.common.helpers;
+
+import org.junit.Test;
+import uk.gov.hmcts.ecm.common.model.reports.hearingsbyhearingtype.HearingsByHearingTypeCaseData;
+import uk.gov.hmcts.ecm.common.model.reports.sessiondays.SessionDaysCaseData;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.HEARINGS_BY_HEARING_TYPE_REPORT;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.SESSION_DAYS_REPORT;
+
+public class ESHelperTest {
+
+    @Test
+    public void getSourceFields() {
+        String[] expected = {"data.ethosCaseReference", "data.hearingCollection", "data.managingOffice"};
+        assertArrayEquals(expected, ESHelper.getSourceFields(SessionDaysCaseData.class));
+        assertArrayEquals(expected, ESHelper.getSourceFields(SessionDaysCaseData.class));
+    }
+
+    @Test
+    public void getReportRangeDateSearchQueryWithSourceFields() {
+        String query = ESHelper.getReportRangeDateSearchQuery("2021-07-01T00:00:00.000",
+                "2021-07-31T23:59:59.000", SESSION_DAYS_REPORT, SessionDaysCaseData.class);
+        assertTrue(query.contains("\"_source\""));
+        assertTrue(query.contains("\"data.hearingCollection\""));
+        assertFalse(query.contains("\"data.leadClaimant\""));
+    }
+
+    @Test
+    public void getListingRangeDateSearchQueryWithSourceFields() {
+        String query = ESHelper.getListingRangeDateSearchQuery("2021-07-01", "2021-07-31",
+                HearingsByHearingTypeCaseData.class);
+        assertTrue(query.contains("\"data.leadClaimant\""));
+        assertTrue(query.contains("\"data.subMultipleName\""));
+    }
+
+    @Test
+    public void getSearchQuery() {
+        assertEquals("{\"size\":10000,\"query\":{\"terms\":{\"data.ethosCaseReference.keyword\":"
+                        + "[\"4150001/2020\",\"4150002/2020\"],\"boost\":1.0}}}",
+                ESHelper.getSearchQuery(Arrays.asList("4150001/2020", "4150002/2020")));
+    }
+
+    @Test
+    public void getCasesWithDuplicateEthosRefSearchQueryEscapesValue() {
+        String query = ESHelper.getCasesWithDuplicateEthosRefSearchQuery("4150001/2020\"");
+        assertTrue(query.contains("\"value\":\"4150001/2020\\\"\""));
+    }
+
+    @Test
+    public void getTermsAggregationQuery() {
+        String query = ESHelper.getTermsAggregationQuery("2021-07-01T00:00:00.000", "2021-07-31T23:59:59.000",
+                HEARINGS_BY_HEARING_TYPE_REPORT, ESHelper.CASE_TYPE_FIELD_NAME, null);
+        assertTrue(query.startsWith("{\"size\":0,\"track_total_hits\":true,"));
+        assertTrue(query.contains("\"aggs\":{\"group_by\":{\"terms\":{\"field\":\""
+                + ESHelper.CASE_TYPE_FIELD_NAME + "\""));
+        assertFalse(query.contains("\"_source\""));
+    }
+
+    @Test
+    public void getTermsAggregationQueryWithDetailRows() {
+        String query = ESHelper.getTermsAggregationQuery("2021-07-01T00:00:00.000", "2021-07-31T23:59:59.000",
+                HEARINGS_BY_HEARING_TYPE_REPORT, ESHelper.CASE_TYPE_FIELD_NAME,
+                HearingsByHearingTypeCaseData.class);
+        assertTrue(query.startsWith("{\"size\":10000,"));
+        assertTrue(query.contains("\"_source\":[\"data.ethosCaseReference\""));
+    }
+
+    @Test
+    public void getClaimsAcceptedAggregationQuery() {
+        String query = ESHelper.getClaimsAcceptedAggregationQuery("2021-07-01", "2021-07-31");
+        assertTrue(query.contains("\"per_day\":{\"date_histogram\":{\"field\":\"data.preAcceptCase.dateAccepted\""));
+        assertTrue(query.contains("\"aggs\":{\"group_by\":{\"terms\":{\"field\":\"data.caseType.keyword\""));
+    }
+
+    @Test
+    public void getReportRangeDateCountQuery() {
+        String query = ESHelper.getReportRangeDateCountQuery("2021-07-01T00:00:00.000",
+                "2021-07-31T23:59:59.000", SESSION_DAYS_REPORT);
+        assertTrue(query.startsWith("{\"size\":0,\"track_total_hits\":true,\"query\":"));
+        assertFalse(query.contains("\"_source\""));
+    }
+
+    @Test
+    public void getCountQuery() {
+        String query = ESHelper.getCountQuery("{\"size\":10000,\"query\":{\"match_all\":{}},"
+                + "\"_source\":[\"data.ethosCaseReference\"],\"sort\":[\"_doc\"]}");
+        assertEquals("{\"size\":0,\"query\":{\"match_all\":{}},\"track_total_hits\":true}", query);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getCountQueryRejectsInvalidQuery() {
+        ESHelper.getCountQuery("[]");
+    }
+
+    @Test
+    public void getSearchAfterQuery() {
+        String searchQuery = "{\"size\":10000,\"query\":{\"match_all\":{}},\"sort\":[\"_doc\"]}";
+        assertEquals("{\"size\":10000,\"query\":{\"match_all\":{}},\"sort\":[{\"reference.keyword\":\"asc\"}]}",
+                ESHelper.getSearchAfterQuery(searchQuery, null));
+        assertEquals("{\"size\":10000,\"query\":{\"match_all\":{}},\"sort\":[{\"reference.keyword\":\"asc\"}],"
+                + "\"search_after\":[\"1234\"]}", ESHelper.getSearchAfterQuery(searchQuery, 1234L));
+    }
+
+    @Test
+    public void getListingRangeDateSearchQueryWithoutSourceFields() {
+        String query = ESHelper.getListingRangeDateSearchQuery("2021-07-01", "2021-07-31");
+        assertFalse(query.contains("\"_source\""));
+    }
+
+}
@@ -0,0 +1,53 @@
+package uk.gov.hmcts.ecm.common.helpers;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ESQueryWriterTest {
+
+    @Test
+    public void writeNestedQuery() {
+        String query = new ESQueryWriter()
+                .startObject()
+                .field("size", 10)
+                .startObject("query")
+                .startObject("terms")
+                .array("data.ethosCaseReference.keyword", Arrays.asList("4150001/2020", "4150002/2020"))
+                .field("boost", 1.0)
+                .endObject()
+                .endObject()
+                .field("track_total_hits", true)
+                .endObject()
+                .toString();
+        assertEquals("{\"size\":10,\"query\":{\"terms\":{\"data.ethosCaseReference.keyword\":"
+                + "[\"4150001/2020\",\"4150002/2020\"],\"boost\":1.0}},\"track_total_hits\":true}", query);
+    }
+
+    @Test
+    public void escapeValues() {
+        String query = new ESQueryWriter()
+                .startObject()
+                .field("value", "a\"b\\c\nd\u0001")
+                .endObject()
+                .toString();
+        assertEquals("{\"value\":\"a\\\"b\\\\c\\nd\\u0001\"}", query);
+    }
+
+    @Test
+    public void encodeUtf8() {
+        String value = "Café € 😀";
+        byte[] bytes = new ESQueryWriter().startArray().value(value).endArray().toByteArray();
+        assertArrayEquals(("[\"" + value + "\"]").getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unbalancedEnd() {
+        new ESQueryWriter().startObject().endObject().endObject();
+    }
+
+}
@@ -0,0 +1,72 @@
+package uk.gov.hmcts.ecm.common.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionTest {
+
+    private final List<String> references = Arrays.asList("1", "2", "3", "4", "5");
+
+    @Test
+    public void chunksOfSize() {
+        Partition<String> partition = Partition.ofSize(references, 2);
+        assertEquals(3, partition.size());
+        assertEquals(Arrays.asList("1", "2"), partition.get(0));
+        assertEquals(Arrays.asList("5"), partition.get(2));
+    }
+
+    @Test
+    public void chunksAreCopies() {
+        Partition<String> partition = Partition.ofSize(references, 2);
+        List<String> chunk = partition.get(0);
+        chunk.add("6");
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), references);
+        assertEquals(Arrays.asList("1", "2"), partition.get(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexOutOfRange() {
+        Partition.ofSize(Arrays.asList("1", "2"), 2).get(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeMustBePositive() {
+        Partition.ofSize(references, 0);
+    }
+
+    @Test
+    public void nonRandomAccessList() {
+        Partition<String> partition = Partition.ofSize(new LinkedList<>(references), 3);
+        assertEquals(Arrays.asList("4", "5"), partition.get(1));
+    }
+
+    @Test
+    public void spliteratorIsSizedAndSplits() {
+        Partition<String> partition = Partition.ofSize(references, 1);
+        Spliterator<List<String>> spliterator = partition.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+        Spliterator<List<String>> prefix = spliterator.trySplit();
+        assertEquals(2, prefix.estimateSize());
+        assertEquals(3, spliterator.estimateSize());
+    }
+
+    @Test
+    public void parallelStreamKeepsOrder() {
+        List<String> source = IntStream.range(0, 1001).mapToObj(String::valueOf).collect(Collectors.toList());
+        List<String> flattened = Partition.ofSize(source, 10).parallelStream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        assertEquals(source, flattened);
+    }
+}
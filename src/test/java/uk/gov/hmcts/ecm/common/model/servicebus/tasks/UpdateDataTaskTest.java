@@ -1,18 +1,23 @@
 package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import uk.gov.hmcts.ecm.common.model.ccd.SubmitEvent;
+import uk.gov.hmcts.ecm.common.model.ccd.items.JurCodesTypeItem;
 import uk.gov.hmcts.ecm.common.model.ccd.items.RespondentSumTypeItem;
+import uk.gov.hmcts.ecm.common.model.ccd.types.JudgementType;
+import uk.gov.hmcts.ecm.common.model.ccd.types.JurCodesType;
 import uk.gov.hmcts.ecm.common.model.ccd.types.RespondentSumType;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.UpdateDataModel;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -250,6 +255,63 @@ public class UpdateDataTaskTest {
         assertEquals(2, submitEvent.getCaseData().getRespondentCollection().size());
     }
 
+    @Test
+    public void runAllGivesEachCaseItsOwnCopies() {
+        UpdateDataModel updateModel = updateDataModelBuilder.withJurisdictionCode("Code3", "Outcome3").build();
+        updateModel.setRespondentSumType(getUpdateRespondentSumType("TestRespondent1", "Email", "Yes"));
+        updateModel.setJudgementType(getJudgementType("Code1", "Code2"));
+        SubmitEvent first = new CaseDataBuilder().withJurisdictionCode("Code1", "Outcome1")
+                .withRespondentCollection(List.of()).buildAsSubmitEvent("Accepted");
+        SubmitEvent second = new CaseDataBuilder().withJurisdictionCode("Code2", "Outcome2")
+                .withRespondentCollection(List.of()).buildAsSubmitEvent("Accepted");
+
+        TaskBatchResult result = new UpdateDataTask(updateModel).runAll(List.of(first, second));
+
+        assertTrue(result.isSuccessful());
+        JudgementType firstJudgement = first.getCaseData().getJudgementCollection().get(0).getValue();
+        JudgementType secondJudgement = second.getCaseData().getJudgementCollection().get(0).getValue();
+        assertNotSame(firstJudgement, secondJudgement);
+        assertEquals("Code1", firstJudgement.getJurisdictionCodes().get(0).getValue().getJuridictionCodesList());
+        assertEquals("Code2", secondJudgement.getJurisdictionCodes().get(0).getValue().getJuridictionCodesList());
+        assertEquals(2, updateModel.getJudgementType().getJurisdictionCodes().size());
+
+        RespondentSumType firstRespondent = first.getCaseData().getRespondentCollection().get(0).getValue();
+        RespondentSumType secondRespondent = second.getCaseData().getRespondentCollection().get(0).getValue();
+        assertEquals(updateModel.getRespondentSumType(), firstRespondent);
+        assertNotSame(updateModel.getRespondentSumType(), firstRespondent);
+        assertNotSame(firstRespondent, secondRespondent);
+        assertNotSame(first.getCaseData().getJurCodesCollection().get(1).getValue(),
+                second.getCaseData().getJurCodesCollection().get(1).getValue());
+    }
+
+    @Test
+    public void runRecompilesPlanWhenDataModelIsReplaced() {
+        var task = new UpdateDataTask(UpdateDataModel.builder().clerkResponsible("Clerk1").build());
+        var first = caseDataBuilder.buildAsSubmitEvent("Accepted");
+        task.run(first);
+
+        task.setDataModelParent(UpdateDataModel.builder().clerkResponsible("Clerk2").build());
+        var second = new CaseDataBuilder().buildAsSubmitEvent("Accepted");
+        task.run(second);
+
+        assertEquals("Clerk1", first.getCaseData().getClerkResponsible());
+        assertEquals("Clerk2", second.getCaseData().getClerkResponsible());
+    }
+
+    private JudgementType getJudgementType(String... jurisdictionCodes) {
+        List<JurCodesTypeItem> jurCodesTypeItems = new ArrayList<>();
+        for (String jurisdictionCode : jurisdictionCodes) {
+            JurCodesType jurCodesType = new JurCodesType();
+            jurCodesType.setJuridictionCodesList(jurisdictionCode);
+            JurCodesTypeItem jurCodesTypeItem = new JurCodesTypeItem();
+            jurCodesTypeItem.setValue(jurCodesType);
+            jurCodesTypeItems.add(jurCodesTypeItem);
+        }
+        JudgementType judgementType = new JudgementType();
+        judgementType.setJurisdictionCodes(jurCodesTypeItems);
+        return judgementType;
+    }
+
     private RespondentSumTypeItem getRespondentSumTypeItem(String id, String respondentName, String contactPreference,
                                                            String responseContinue) {
         RespondentSumTypeItem respondentSumTypeItem = new RespondentSumTypeItem();
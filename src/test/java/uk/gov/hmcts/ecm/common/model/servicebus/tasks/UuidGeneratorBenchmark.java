@@ -0,0 +1,89 @@
+package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Compares UuidGenerator with UUID.randomUUID for generating item ids from several threads at once, and
+ * UuidGenerator.isValid with the regex it replaced for validating them. Reports operations per second for each.
+ *
+ * <p>Run with: {@code UuidGeneratorBenchmark [threads] [operationsPerThread]}
+ */
+public final class UuidGeneratorBenchmark {
+
+    private static final int WARM_UP_RUNS = 3;
+    private static final String UUID_PATTERN =
+            "[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    private UuidGeneratorBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        List<String> ids = new ArrayList<>(1024);
+        for (int i = 0; i < 1024; i++) {
+            ids.add(i % 2 == 0 ? UuidGenerator.randomId() : "jurisdiction-code-" + i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i <= WARM_UP_RUNS; i++) {
+                boolean report = i == WARM_UP_RUNS;
+                run("UUID.randomUUID", executor, threads, operations, report,
+                        () -> generate(operations, () -> UUID.randomUUID().toString()));
+                run("UuidGenerator.randomId", executor, threads, operations, report,
+                        () -> generate(operations, UuidGenerator::randomId));
+                run("String.matches", executor, threads, operations, report,
+                        () -> validate(operations, ids, id -> id.matches(UUID_PATTERN)));
+                run("UuidGenerator.isValid", executor, threads, operations, report,
+                        () -> validate(operations, ids, UuidGenerator::isValid));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void run(String name, ExecutorService executor, int threads, int operations, boolean report,
+                            Supplier<Integer> task) {
+        List<CompletableFuture<Integer>> results = new ArrayList<>(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            results.add(CompletableFuture.supplyAsync(task, executor));
+        }
+        int blackhole = 0;
+        for (CompletableFuture<Integer> result : results) {
+            blackhole += result.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%-24s threads=%d ops/sec=%.0f (%d)%n", name, threads,
+                    (long) threads * operations * 1_000_000_000d / elapsedNanos, blackhole);
+        }
+    }
+
+    private static int generate(int operations, Supplier<String> generator) {
+        int hash = 0;
+        for (int i = 0; i < operations; i++) {
+            hash += generator.get().hashCode();
+        }
+        return hash;
+    }
+
+    private static int validate(int operations, List<String> ids, Predicate<String> validator) {
+        int valid = 0;
+        for (int i = 0; i < operations; i++) {
+            if (validator.test(ids.get(i & (ids.size() - 1)))) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+}
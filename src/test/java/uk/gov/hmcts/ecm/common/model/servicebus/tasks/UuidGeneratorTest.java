@@ -0,0 +1,64 @@
+package uk.gov.hmcts.ecm.common.model.servicebus.tasks;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UuidGeneratorTest {
+
+    private static final String UUID_PATTERN =
+            "[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    @Test
+    public void randomUuidIsVersion4() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = UuidGenerator.randomUuid();
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+            ids.add(uuid.toString());
+        }
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    public void randomIdIsValid() {
+        String id = UuidGenerator.randomId();
+        assertTrue(id.matches(UUID_PATTERN));
+        assertTrue(UuidGenerator.isValid(id));
+    }
+
+    @Test
+    public void isValid() {
+        assertTrue(UuidGenerator.isValid(UUID.randomUUID().toString()));
+        assertTrue(UuidGenerator.isValid("3f0e2b5c-9d1a-1b2c-8d4e-5f6a7b8c9d0e"));
+        assertFalse(UuidGenerator.isValid(null));
+        assertFalse(UuidGenerator.isValid(""));
+        assertFalse(UuidGenerator.isValid("3F0E2B5C-9D1A-4B2C-8D4E-5F6A7B8C9D0E"));
+        assertFalse(UuidGenerator.isValid("3f0e2b5c-9d1a-6b2c-8d4e-5f6a7b8c9d0e"));
+        assertFalse(UuidGenerator.isValid("3f0e2b5c-9d1a-4b2c-cd4e-5f6a7b8c9d0e"));
+        assertFalse(UuidGenerator.isValid("3f0e2b5c9d1a-4b2c-8d4e-5f6a7b8c9d0e0"));
+        assertFalse(UuidGenerator.isValid("3f0e2b5c-9d1a-4b2c-8d4e-5f6a7b8c9d0"));
+        assertFalse(UuidGenerator.isValid("1"));
+    }
+
+    @Test
+    public void isValidMatchesPattern() {
+        Random random = new Random(0);
+        String alphabet = "0123456789abcdefABg-";
+        for (int i = 0; i < 10_000; i++) {
+            char[] id = UUID.randomUUID().toString().toCharArray();
+            id[random.nextInt(id.length)] = alphabet.charAt(random.nextInt(alphabet.length()));
+            String candidate = new String(id);
+            assertEquals(candidate, candidate.matches(UUID_PATTERN), UuidGenerator.isValid(candidate));
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.IMessage;
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.primitives.ServiceBusException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for a Service Bus queue. The IQueueClient returned by client() enqueues sent messages locally,
+ * optionally after a fixed latency and failing a configurable fraction of sends. Only the send, schedule and close
+ * operations are supported.
+ */
+public class InMemoryQueueClient implements InvocationHandler {
+
+    private final ConcurrentLinkedQueue<IMessage> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sendCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final Random random = new Random(0);
+    private Duration latency = Duration.ZERO;
+    private double failureRate;
+    private ScheduledExecutorService scheduler;
+
+    public InMemoryQueueClient withLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Fails the given fraction of sends with a transient ServiceBusException. Failures are drawn from a fixed seed
+     * so runs are repeatable.
+     */
+    public InMemoryQueueClient withFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    public IQueueClient client() {
+        return (IQueueClient) Proxy.newProxyInstance(IQueueClient.class.getClassLoader(),
+                new Class<?>[] {IQueueClient.class}, this);
+    }
+
+    /**
+     * Removes and returns the messages enqueued so far.
+     */
+    public List<IMessage> receive() {
+        List<IMessage> received = new ArrayList<>();
+        IMessage message;
+        while ((message = messages.poll()) != null) {
+            received.add(message);
+        }
+        return received;
+    }
+
+    public long getSendCount() {
+        return sendCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "send":
+            case "scheduleMessage":
+                if (!latency.isZero()) {
+                    Thread.sleep(latency.toMillis());
+                }
+                enqueue(List.of((IMessage) args[0]));
+                return method.getReturnType() == long.class ? 0L : null;
+            case "sendBatch":
+                if (!latency.isZero()) {
+                    Thread.sleep(latency.toMillis());
+                }
+                enqueue((Collection<? extends IMessage>) args[0]);
+                return null;
+            case "sendAsync":
+            case "scheduleMessageAsync":
+                return enqueueAsync(List.of((IMessage) args[0]), "scheduleMessageAsync".equals(method.getName()));
+            case "sendBatchAsync":
+                return enqueueAsync((Collection<? extends IMessage>) args[0], false);
+            case "close":
+            case "closeAsync":
+                synchronized (this) {
+                    if (scheduler != null) {
+                        scheduler.shutdown();
+                    }
+                }
+                return "closeAsync".equals(method.getName()) ? CompletableFuture.completedFuture(null) : null;
+            case "getEntityPath":
+            case "getQueueName":
+                return "in-memory";
+            case "toString":
+                return "InMemoryQueueClient";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private CompletableFuture<Object> enqueueAsync(Collection<? extends IMessage> sent, boolean scheduled) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Runnable enqueue = () -> {
+            try {
+                enqueue(sent);
+                result.complete(scheduled ? 0L : null);
+            } catch (ServiceBusException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (latency.isZero()) {
+            enqueue.run();
+        } else {
+            scheduler().schedule(enqueue, latency.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    private void enqueue(Collection<? extends IMessage> sent) throws ServiceBusException {
+        sendCount.incrementAndGet();
+        if (failureRate > 0 && nextDouble() < failureRate) {
+            failureCount.incrementAndGet();
+            throw new ServiceBusException(true, "Injected send failure");
+        }
+        messages.addAll(sent);
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "in-memory-queue");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+}
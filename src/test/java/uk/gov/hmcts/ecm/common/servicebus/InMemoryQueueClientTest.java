@@ -0,0 +1,62 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.Message;
+import com.microsoft.azure.servicebus.primitives.ServiceBusException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryQueueClientTest {
+
+    @Test
+    public void sendEnqueuesMessages() {
+        InMemoryQueueClient queue = new InMemoryQueueClient();
+        IQueueClient queueClient = queue.client();
+        queueClient.sendAsync(new Message("1")).join();
+        queueClient.sendBatchAsync(List.of(new Message("2"), new Message("3"))).join();
+        assertEquals(3, queue.receive().size());
+        assertTrue(queue.receive().isEmpty());
+        assertEquals(2, queue.getSendCount());
+    }
+
+    @Test
+    public void injectedFailure() {
+        InMemoryQueueClient queue = new InMemoryQueueClient().withFailureRate(1);
+        CompletableFuture<Void> send = queue.client().sendAsync(new Message("1"));
+        try {
+            send.join();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ServiceBusException);
+        }
+        assertTrue(send.isCompletedExceptionally());
+        assertEquals(1, queue.getFailureCount());
+        assertTrue(queue.receive().isEmpty());
+    }
+
+    @Test
+    public void injectedLatency() {
+        InMemoryQueueClient queue = new InMemoryQueueClient().withLatency(Duration.ofMillis(50));
+        IQueueClient queueClient = queue.client();
+        CompletableFuture<Void> send = queueClient.sendAsync(new Message("1"));
+        assertFalse(send.isDone());
+        send.join();
+        assertEquals(1, queue.receive().size());
+        queueClient.closeAsync().join();
+    }
+
+    @Test
+    public void benchmarkProcessesEveryCase() {
+        MessagingThroughputBenchmark.Result result = MessagingThroughputBenchmark.run(200, 20, Duration.ZERO, 0);
+        assertEquals(200, result.processed());
+        assertEquals(0, result.failed());
+    }
+
+}
@@ -0,0 +1,91 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.Message;
+import com.microsoft.azure.servicebus.MessageBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
+import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.UpdateDataModel;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageCodecsTest {
+
+    private static final String TEST_CONTENT_TYPE = "application/x-test";
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private ObjectMapper objectMapper;
+    private MessageCodecs messageCodecs;
+    private UpdateCaseMsg updateCaseMsg;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        messageCodecs = new MessageCodecs(objectMapper)
+                .register(new JacksonMessageCodec(TEST_CONTENT_TYPE, objectMapper));
+        updateCaseMsg = ServiceBusHelper.generateUpdateCaseMsg(ServiceBusHelper.getUpdateDataModel());
+    }
+
+    @Test
+    public void decodeJsonMessage() {
+        ServiceBusSender sender = new ServiceBusSender(Mockito.mock(IQueueClient.class), objectMapper);
+        Message busMessage = sender.mapToBusMessage(updateCaseMsg);
+
+        UpdateCaseMsg decoded = messageCodecs.decode(busMessage, UpdateCaseMsg.class);
+
+        assertEquals(JacksonMessageCodec.JSON_CONTENT_TYPE, busMessage.getContentType());
+        assertEquals(updateCaseMsg, decoded);
+        assertTrue(decoded.getDataModelParent() instanceof UpdateDataModel);
+    }
+
+    @Test
+    public void decodeByContentType() {
+        ServiceBusSender sender = new ServiceBusSender(Mockito.mock(IQueueClient.class),
+                new JacksonMessageCodec(TEST_CONTENT_TYPE, objectMapper), 0);
+        Message busMessage = sender.mapToBusMessage(updateCaseMsg);
+
+        assertEquals(TEST_CONTENT_TYPE, busMessage.getContentType());
+        assertEquals(updateCaseMsg, messageCodecs.decode(busMessage, UpdateCaseMsg.class));
+    }
+
+    @Test
+    public void roundTripSmile() {
+        ServiceBusSender sender = new ServiceBusSender(Mockito.mock(IQueueClient.class),
+                JacksonMessageCodec.smile(objectMapper), -1);
+        Message busMessage = sender.mapToBusMessage(updateCaseMsg);
+        byte[] body = busMessage.getMessageBody().getBinaryData().get(0);
+
+        UpdateCaseMsg decoded = messageCodecs.decode(busMessage, UpdateCaseMsg.class);
+
+        assertEquals(JacksonMessageCodec.SMILE_CONTENT_TYPE, busMessage.getContentType());
+        assertArrayEquals(SMILE_HEADER, Arrays.copyOf(body, SMILE_HEADER.length));
+        assertEquals(updateCaseMsg, decoded);
+        assertTrue(decoded.getDataModelParent() instanceof UpdateDataModel);
+    }
+
+    @Test
+    public void decodeAllBodySegments() {
+        byte[] body = JacksonMessageCodec.smile(objectMapper).encode(updateCaseMsg);
+        int half = body.length / 2;
+        Message busMessage = new Message(MessageBody.fromBinaryData(
+                Arrays.asList(Arrays.copyOfRange(body, 0, half), Arrays.copyOfRange(body, half, body.length))));
+        busMessage.setContentType(JacksonMessageCodec.SMILE_CONTENT_TYPE);
+
+        assertEquals(updateCaseMsg, messageCodecs.decode(busMessage, UpdateCaseMsg.class));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void unsupportedContentType() {
+        messageCodecs.forContentType("application/xml");
+    }
+
+}
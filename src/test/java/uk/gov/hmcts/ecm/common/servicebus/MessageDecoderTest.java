@@ -0,0 +1,98 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.Message;
+import com.microsoft.azure.servicebus.MessageBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
+import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.UpdateDataModel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageDecoderTest {
+
+    private ObjectMapper objectMapper;
+    private MessageDecoder messageDecoder;
+    private UpdateCaseMsg updateCaseMsg;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        messageDecoder = new MessageDecoder(objectMapper);
+        updateCaseMsg = ServiceBusHelper.generateUpdateCaseMsg(ServiceBusHelper.getUpdateDataModel());
+    }
+
+    @Test
+    public void decodeUpdateCaseMsg() {
+        ServiceBusSender sender = new ServiceBusSender(Mockito.mock(IQueueClient.class), objectMapper);
+
+        UpdateCaseMsg decoded = messageDecoder.decodeUpdateCaseMsg(sender.mapToBusMessage(updateCaseMsg));
+
+        assertEquals(updateCaseMsg, decoded);
+        assertTrue(decoded.getDataModelParent() instanceof UpdateDataModel);
+    }
+
+    @Test
+    public void decodeSegmentedBody() throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(updateCaseMsg);
+        int third = body.length / 3;
+        List<byte[]> segments = Arrays.asList(Arrays.copyOfRange(body, 0, third),
+                Arrays.copyOfRange(body, third, 2 * third), Arrays.copyOfRange(body, 2 * third, body.length));
+
+        Message busMessage = new Message(MessageBody.fromBinaryData(segments));
+
+        assertEquals(updateCaseMsg, messageDecoder.decode(busMessage, UpdateCaseMsg.class));
+    }
+
+    @Test
+    public void decodeSegmentedBodyByContentType() {
+        byte[] body = JacksonMessageCodec.smile(objectMapper).encode(updateCaseMsg);
+        int third = body.length / 3;
+        List<byte[]> segments = Arrays.asList(Arrays.copyOfRange(body, 0, third),
+                Arrays.copyOfRange(body, third, 2 * third), Arrays.copyOfRange(body, 2 * third, body.length));
+
+        Message busMessage = new Message(MessageBody.fromBinaryData(segments));
+        busMessage.setContentType(JacksonMessageCodec.SMILE_CONTENT_TYPE);
+
+        UpdateCaseMsg decoded = messageDecoder.decodeUpdateCaseMsg(busMessage);
+
+        assertEquals(updateCaseMsg, decoded);
+        assertTrue(decoded.getDataModelParent() instanceof UpdateDataModel);
+    }
+
+    @Test
+    public void decodeCompressedBody() {
+        ServiceBusSender sender = new ServiceBusSender(Mockito.mock(IQueueClient.class), objectMapper, 0);
+
+        assertEquals(updateCaseMsg, messageDecoder.decodeUpdateCaseMsg(sender.mapToBusMessage(updateCaseMsg)));
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void unsupportedContentType() {
+        Message busMessage = new Message(MessageBody.fromBinaryData(
+                Collections.singletonList("<msg/>".getBytes(StandardCharsets.UTF_8))));
+        busMessage.setContentType("application/xml");
+
+        messageDecoder.decode(busMessage, UpdateCaseMsg.class);
+    }
+
+    @Test(expected = InvalidMessageException.class)
+    public void invalidBody() {
+        Message busMessage = new Message(MessageBody.fromBinaryData(
+                Collections.singletonList("not json".getBytes(StandardCharsets.UTF_8))));
+
+        messageDecoder.decode(busMessage, UpdateCaseMsg.class);
+    }
+
+}
@@ -0,0 +1,132 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.servicebus.IMessage;
+import uk.gov.hmcts.ecm.common.helpers.CreateUpdatesHelper;
+import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
+import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesDto;
+import uk.gov.hmcts.ecm.common.model.servicebus.CreateUpdatesMsg;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.CreationDataModel;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.ACCEPTED_STATE;
+import static uk.gov.hmcts.ecm.common.model.helper.Constants.SCOTLAND_BULK_CASE_TYPE_ID;
+
+/**
+ * Drives the messaging path of a multiple update against in-memory queues: CreateUpdatesHelper chunks the cases,
+ * ServiceBusSender sends the CreateUpdatesMsgs, which are decoded and fanned out as UpdateCaseMsgs, which are sent,
+ * decoded and run against a case. Reports UpdateCaseMsgs processed per second and bytes allocated per UpdateCaseMsg
+ * on the driving thread.
+ *
+ * <p>Run with: {@code MessagingThroughputBenchmark [cases] [chunkSize] [latencyMillis] [failureRate]}
+ */
+public final class MessagingThroughputBenchmark {
+
+    private static final int WARM_UP_RUNS = 3;
+
+    private MessagingThroughputBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Duration latency = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 0);
+        double failureRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            run(cases, chunkSize, latency, failureRate);
+        }
+        System.out.println(run(cases, chunkSize, latency, failureRate));
+    }
+
+    static Result run(int cases, int chunkSize, Duration latency, double failureRate) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        MessageDecoder messageDecoder = new MessageDecoder(objectMapper);
+        InMemoryQueueClient createUpdatesQueue = new InMemoryQueueClient()
+                .withLatency(latency).withFailureRate(failureRate);
+        InMemoryQueueClient updateCaseQueue = new InMemoryQueueClient()
+                .withLatency(latency).withFailureRate(failureRate);
+        List<String> ethosCaseRefCollection = new ArrayList<>(cases);
+        for (int i = 0; i < cases; i++) {
+            ethosCaseRefCollection.add((4_150_000 + i) + "/2020");
+        }
+        CreateUpdatesDto createUpdatesDto = CreateUpdatesDto.builder()
+                .caseTypeId(SCOTLAND_BULK_CASE_TYPE_ID)
+                .jurisdiction("EMPLOYMENT")
+                .multipleRef("4150001")
+                .username("testEmail@hotmail.com")
+                .ethosCaseRefCollection(ethosCaseRefCollection)
+                .build();
+        CreationDataModel creationDataModel = ServiceBusHelper.getCreationDataModel(ethosCaseRefCollection.get(0));
+
+        long processed = 0;
+        long failed = 0;
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        try (ServiceBusSender createUpdatesSender = new ServiceBusSender(createUpdatesQueue.client(), objectMapper);
+             ServiceBusSender updateCaseSender = new ServiceBusSender(updateCaseQueue.client(), objectMapper)) {
+            List<CreateUpdatesMsg> createUpdatesMsgs = CreateUpdatesHelper.getCreateUpdatesMessagesCollection(
+                    createUpdatesDto, creationDataModel, chunkSize, String.valueOf(cases));
+            failed += createUpdatesSender.sendBatch(createUpdatesMsgs).getFailures().size();
+
+            for (IMessage message : createUpdatesQueue.receive()) {
+                CreateUpdatesMsg createUpdatesMsg = messageDecoder.decodeCreateUpdatesMsg(message);
+                List<UpdateCaseMsg> updateCaseMsgs = new ArrayList<>();
+                for (String ethosCaseReference : createUpdatesMsg.getEthosCaseRefCollection()) {
+                    updateCaseMsgs.add(updateCaseMsg(createUpdatesMsg, ethosCaseReference));
+                }
+                failed += updateCaseSender.sendBatch(updateCaseMsgs).getFailures().size();
+            }
+
+            for (IMessage message : updateCaseQueue.receive()) {
+                messageDecoder.decodeUpdateCaseMsg(message)
+                        .runTask(ServiceBusHelper.generateSubmitEvent(ACCEPTED_STATE));
+                processed++;
+            }
+        }
+        return new Result(cases, processed, failed, System.nanoTime() - start, allocatedBytes() - startBytes);
+    }
+
+    private static UpdateCaseMsg updateCaseMsg(CreateUpdatesMsg createUpdatesMsg, String ethosCaseReference) {
+        return UpdateCaseMsg.builder()
+                .msgId(createUpdatesMsg.getMsgId() + ":" + ethosCaseReference)
+                .jurisdiction(createUpdatesMsg.getJurisdiction())
+                .caseTypeId(createUpdatesMsg.getCaseTypeId())
+                .multipleRef(createUpdatesMsg.getMultipleRef())
+                .ethosCaseReference(ethosCaseReference)
+                .totalCases(createUpdatesMsg.getTotalCases())
+                .username(createUpdatesMsg.getUsername())
+                .confirmation(createUpdatesMsg.getConfirmation())
+                .dataModelParent(createUpdatesMsg.getDataModelParent())
+                .multipleReferenceLinkMarkUp(createUpdatesMsg.getMultipleReferenceLinkMarkUp())
+                .build();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    record Result(int cases, long processed, long failed, long elapsedNanos, long allocatedBytes) {
+
+        double messagesPerSecond() {
+            return processed * 1_000_000_000d / elapsedNanos;
+        }
+
+        long bytesPerMessage() {
+            return processed == 0 ? 0 : allocatedBytes / processed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cases=%d processed=%d failedSends=%d elapsed=%dms msgs/sec=%.0f alloc/msg=%dB",
+                    cases, processed, failed, elapsedNanos / 1_000_000, messagesPerSecond(), bytesPerMessage());
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.Message;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueueClientPoolTest {
+
+    @Mock
+    private IQueueClient firstClient;
+    @Mock
+    private IQueueClient secondClient;
+
+    private final Message message = new Message();
+
+    @Before
+    public void setUp() {
+        message.setMessageId("1");
+    }
+
+    @Test
+    public void roundRobin() {
+        when(firstClient.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(secondClient.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        QueueClientPool pool = new QueueClientPool(Arrays.asList(firstClient, secondClient),
+                QueueClientPool.Selection.ROUND_ROBIN);
+        pool.sendAsync(message).join();
+        pool.sendAsync(message).join();
+        pool.sendAsync(message).join();
+        verify(firstClient, times(2)).sendAsync(message);
+        verify(secondClient, times(1)).sendAsync(message);
+        assertEquals(0, pool.inFlightCount());
+    }
+
+    @Test
+    public void leastInFlight() {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        when(firstClient.sendAsync(any())).thenReturn(pending);
+        when(secondClient.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        QueueClientPool pool = new QueueClientPool(Arrays.asList(firstClient, secondClient),
+                QueueClientPool.Selection.LEAST_IN_FLIGHT);
+        pool.sendAsync(message);
+        pool.sendAsync(message).join();
+        pool.sendAsync(message).join();
+        pool.sendAsync(message).join();
+        verify(firstClient, times(1)).sendAsync(message);
+        verify(secondClient, times(3)).sendAsync(message);
+        assertEquals(1, pool.inFlightCount());
+        pending.complete(null);
+        assertEquals(0, pool.inFlightCount());
+    }
+
+    @Test
+    public void closeWaitsForEveryClient() {
+        when(firstClient.closeAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        when(secondClient.closeAsync()).thenReturn(CompletableFuture.failedFuture(new IllegalStateException()));
+        new QueueClientPool(Arrays.asList(firstClient, secondClient), QueueClientPool.Selection.ROUND_ROBIN).close();
+        verify(firstClient).closeAsync();
+        verify(secondClient).closeAsync();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresQueueClient() {
+        new QueueClientPool(Collections.emptyList(), QueueClientPool.Selection.ROUND_ROBIN);
+    }
+
+}
@@ -0,0 +1,157 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import com.microsoft.azure.servicebus.primitives.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusSendException;
+import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
+import uk.gov.hmcts.ecm.common.model.servicebus.Msg;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResilientServiceBusSenderTest {
+
+    private static final ResilientServiceBusSender.RetryPolicy RETRY_POLICY =
+            new ResilientServiceBusSender.RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Mock
+    private ServiceBusSender serviceBusSender;
+
+    private ScheduledExecutorService scheduler;
+    private final List<Msg> dropped = new ArrayList<>();
+    private UpdateCaseMsg updateCaseMsg;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        updateCaseMsg = ServiceBusHelper.generateUpdateCaseMsg(ServiceBusHelper.getCreationDataModel("4150002/2020"));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void retriesTransientFailure() {
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        sender(10).send(updateCaseMsg).join();
+        verify(serviceBusSender, times(2)).sendMessageAsync(updateCaseMsg);
+        assertTrue(dropped.isEmpty());
+    }
+
+    @Test
+    public void buffersUntilConnectionRecovers() {
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        ResilientServiceBusSender sender = sender(10);
+        sender.send(updateCaseMsg).join();
+        verify(serviceBusSender, times(4)).sendMessageAsync(updateCaseMsg);
+        assertEquals(0, sender.getBufferedCount());
+        assertTrue(dropped.isEmpty());
+    }
+
+    @Test
+    public void dropsInvalidMessage() {
+        when(serviceBusSender.sendMessageAsync(any())).thenThrow(new InvalidMessageException("Msg Id == null"));
+        assertDropped(sender(10).send(updateCaseMsg), InvalidMessageException.class);
+        verify(serviceBusSender, times(1)).sendMessageAsync(updateCaseMsg);
+    }
+
+    @Test
+    public void dropsWhenBufferIsFull() {
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+        assertDropped(sender(0).send(updateCaseMsg), ServiceBusSendException.class);
+    }
+
+    @Test
+    public void closeDropsBufferedMessages() {
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+        ResilientServiceBusSender sender = new ResilientServiceBusSender(serviceBusSender,
+                new ResilientServiceBusSender.RetryPolicy(1, Duration.ofMillis(1), Duration.ofHours(1)), 10,
+                (msg, cause) -> dropped.add(msg), scheduler);
+        CompletableFuture<Void> send = sender.send(updateCaseMsg);
+        assertEquals(1, sender.getBufferedCount());
+        sender.close();
+        assertDropped(send, ServiceBusSendException.class);
+    }
+
+    @Test
+    public void closeDropsMessageWaitingToRetry() {
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+        ResilientServiceBusSender sender = new ResilientServiceBusSender(serviceBusSender,
+                new ResilientServiceBusSender.RetryPolicy(2, Duration.ofHours(1), Duration.ofHours(1)), 10,
+                (msg, cause) -> dropped.add(msg), scheduler);
+        CompletableFuture<Void> send = sender.send(updateCaseMsg);
+        assertEquals(0, sender.getBufferedCount());
+        sender.close();
+        assertDropped(send, ServiceBusSendException.class);
+        verify(serviceBusSender, times(1)).sendMessageAsync(updateCaseMsg);
+    }
+
+    @Test
+    public void closeLetsInFlightDrainSendSettleBufferedMessage() {
+        CompletableFuture<Void> drainSend = new CompletableFuture<>();
+        when(serviceBusSender.sendMessageAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()))
+                .thenReturn(drainSend);
+        ResilientServiceBusSender sender = new ResilientServiceBusSender(serviceBusSender,
+                new ResilientServiceBusSender.RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(1)), 10,
+                (msg, cause) -> dropped.add(msg), scheduler);
+        CompletableFuture<Void> send = sender.send(updateCaseMsg);
+        verify(serviceBusSender, timeout(1000).times(2)).sendMessageAsync(updateCaseMsg);
+
+        CompletableFuture<Void> close = CompletableFuture.runAsync(sender::close);
+        drainSend.complete(null);
+        close.join();
+
+        send.join();
+        assertTrue(dropped.isEmpty());
+    }
+
+    private ResilientServiceBusSender sender(int overflowCapacity) {
+        return new ResilientServiceBusSender(serviceBusSender, RETRY_POLICY, overflowCapacity,
+                (msg, cause) -> dropped.add(msg), scheduler);
+    }
+
+    private void assertDropped(CompletableFuture<Void> send, Class<? extends Throwable> cause) {
+        try {
+            send.join();
+            fail("Expected message to be dropped");
+        } catch (CompletionException e) {
+            assertTrue(cause.isInstance(e.getCause()));
+        }
+        assertEquals(List.of(updateCaseMsg), dropped);
+    }
+
+}
@@ -0,0 +1,104 @@
+package uk.gov.hmcts.ecm.common.servicebus;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.hmcts.ecm.common.exceptions.ServiceBusSendException;
+import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
+import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceBusSendPipelineTest {
+
+    @Mock
+    private ServiceBusSender serviceBusSender;
+
+    private final List<CompletableFuture<Void>> sends = new ArrayList<>();
+    private final List<UpdateCaseMsg> msgs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 5; i++) {
+            UpdateCaseMsg msg = ServiceBusHelper.generateUpdateCaseMsg(
+                    ServiceBusHelper.getCreationDataModel("415000" + i + "/2020"));
+            msg.setMsgId(String.valueOf(i));
+            msgs.add(msg);
+        }
+    }
+
+    @Test
+    public void sendAllKeepsWindowBounded() {
+        when(serviceBusSender.sendMessageAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<Void> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+
+        CompletableFuture<Void> completion = new ServiceBusSendPipeline(serviceBusSender, 2).sendAll(msgs);
+
+        assertEquals(2, sends.size());
+        sends.get(0).complete(null);
+        assertEquals(3, sends.size());
+        for (int i = 1; i < 5; i++) {
+            sends.get(i).complete(null);
+        }
+        assertEquals(5, sends.size());
+        assertTrue(completion.isDone());
+        assertFalse(completion.isCompletedExceptionally());
+    }
+
+    @Test
+    public void sendAllReportsEarliestFailureFirst() {
+        when(serviceBusSender.sendMessageAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<Void> send = new CompletableFuture<>();
+            sends.add(send);
+            return send;
+        });
+        RuntimeException firstFailure = new RuntimeException("first");
+
+        CompletableFuture<Void> completion = new ServiceBusSendPipeline(serviceBusSender, 5).sendAll(msgs);
+        sends.get(3).completeExceptionally(new RuntimeException("second"));
+        sends.get(1).completeExceptionally(firstFailure);
+        sends.get(0).complete(null);
+        sends.get(2).complete(null);
+        sends.get(4).complete(null);
+
+        try {
+            completion.join();
+            fail("Expected failure");
+        } catch (CompletionException e) {
+            ServiceBusSendException sendException = (ServiceBusSendException) e.getCause();
+            assertSame(firstFailure, sendException.getCause());
+            assertEquals(List.of("1", "3"), sendException.getFailedMsgIds());
+        }
+    }
+
+    @Test
+    public void sendAllCompletedSynchronously() {
+        when(serviceBusSender.sendMessageAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        List<UpdateCaseMsg> manyMsgs = Collections.nCopies(10_000, msgs.get(0));
+
+        new ServiceBusSendPipeline(serviceBusSender, 4).sendAll(manyMsgs).join();
+
+        verify(serviceBusSender, times(10_000)).sendMessageAsync(any());
+    }
+
+}
@@ -1,13 +1,14 @@
 package uk.gov.hmcts.ecm.common.servicebus;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microsoft.azure.servicebus.IQueueClient;
+import com.microsoft.azure.servicebus.Message;
 import com.microsoft.azure.servicebus.primitives.ServiceBusException;
 import com.microsoft.azure.servicebus.primitives.TimeoutException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import uk.gov.hmcts.ecm.common.exceptions.InvalidMessageException;
@@ -16,13 +17,30 @@ import uk.gov.hmcts.ecm.common.helpers.ServiceBusHelper;
 import uk.gov.hmcts.ecm.common.model.servicebus.UpdateCaseMsg;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.CreationDataModel;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServiceBusSenderTest {
 
-    @InjectMocks
     private ServiceBusSender serviceBusSender;
     @Mock
     private IQueueClient sendClient;
@@ -40,7 +58,9 @@ public class ServiceBusSenderTest {
 
     @Test
     public void sendMessageAsync() {
-        serviceBusSender.sendMessageAsync(updateCaseMsg);
+        when(sendClient.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        serviceBusSender.sendMessageAsync(updateCaseMsg).join();
+        verify(sendClient).sendAsync(any());
     }
 
     @Test
@@ -77,4 +97,238 @@ public class ServiceBusSenderTest {
         serviceBusSender.sendMessage(updateCaseMsg);
     }
 
+    @Test
+    public void sendBatch() {
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        BatchSendResult result = serviceBusSender.sendBatch(Collections.singletonList(updateCaseMsg));
+        assertTrue(result.isSuccessful());
+        assertEquals(List.of("1"), result.getSentMsgIds());
+    }
+
+    @Test
+    public void sendBatchReportsInvalidMessages() {
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        UpdateCaseMsg invalidMsg = ServiceBusHelper.generateUpdateCaseMsg(
+                ServiceBusHelper.getCreationDataModel("4150003/2020"));
+        invalidMsg.setMsgId(null);
+        BatchSendResult result = serviceBusSender.sendBatch(Arrays.asList(updateCaseMsg, invalidMsg));
+        assertFalse(result.isSuccessful());
+        assertEquals(List.of("1"), result.getSentMsgIds());
+        assertTrue(result.getFailures().get(null) instanceof InvalidMessageException);
+    }
+
+    @Test
+    public void sendBatchAsyncReportsFailedBatch() {
+        ServiceBusException failure = new ServiceBusException(true);
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.failedFuture(failure));
+        BatchSendResult result = serviceBusSender.sendBatchAsync(Collections.singletonList(updateCaseMsg)).join();
+        assertTrue(result.getSentMsgIds().isEmpty());
+        assertEquals(failure, result.getFailures().get("1"));
+    }
+
+    @Test
+    public void sendBatchSplitsBySize() throws JsonProcessingException {
+        when(objectMapper.writeValueAsBytes(any())).thenReturn(new byte[100 * 1024]);
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        UpdateCaseMsg otherMsg = ServiceBusHelper.generateUpdateCaseMsg(
+                ServiceBusHelper.getCreationDataModel("4150003/2020"));
+        otherMsg.setMsgId("2");
+        BatchSendResult result = serviceBusSender.sendBatch(Arrays.asList(updateCaseMsg, otherMsg));
+        assertEquals(List.of("1", "2"), result.getSentMsgIds());
+        verify(sendClient, times(2)).sendBatchAsync(any());
+    }
+
+    @Test
+    public void sendBatchSplitsByKey() {
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        serviceBusSender.setSessionIdKey(MessageKey.ETHOS_CASE_REFERENCE);
+        UpdateCaseMsg otherMsg = ServiceBusHelper.generateUpdateCaseMsg(
+                ServiceBusHelper.getCreationDataModel("4150003/2020"));
+        otherMsg.setMsgId("2");
+        otherMsg.setEthosCaseReference("4150003/2020");
+        BatchSendResult result = serviceBusSender.sendBatch(Arrays.asList(updateCaseMsg, otherMsg));
+        assertEquals(List.of("1", "2"), result.getSentMsgIds());
+        verify(sendClient, times(2)).sendBatchAsync(any());
+    }
+
+    @Test
+    public void scheduleOverWindow() {
+        when(sendClient.scheduleMessageAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(1L));
+        UpdateCaseMsg otherMsg = ServiceBusHelper.generateUpdateCaseMsg(
+                ServiceBusHelper.getCreationDataModel("4150003/2020"));
+        otherMsg.setMsgId("2");
+        Instant start = Instant.parse("2020-01-01T10:00:00Z");
+        BatchSendResult result = serviceBusSender.scheduleOverWindowAsync(Arrays.asList(updateCaseMsg, otherMsg),
+                start, Duration.ofMinutes(10)).join();
+        assertEquals(List.of("1", "2"), result.getSentMsgIds());
+        verify(sendClient).scheduleMessageAsync(any(), eq(start));
+        verify(sendClient).scheduleMessageAsync(any(), eq(start.plus(Duration.ofMinutes(5))));
+    }
+
+    @Test
+    public void scheduleAtRateReportsFailures() {
+        ServiceBusException failure = new ServiceBusException(true);
+        when(sendClient.scheduleMessageAsync(any(), any())).thenReturn(CompletableFuture.failedFuture(failure));
+        Instant start = Instant.parse("2020-01-01T10:00:00Z");
+        BatchSendResult result = serviceBusSender.scheduleAtRateAsync(Collections.singletonList(updateCaseMsg),
+                start, 2).join();
+        assertEquals(failure, result.getFailures().get("1"));
+    }
+
+    @Test
+    public void scheduleAtRateKeepsSchedulesInFlightBounded() {
+        List<CompletableFuture<Long>> schedules = new ArrayList<>();
+        when(sendClient.scheduleMessageAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<Long> schedule = new CompletableFuture<>();
+            schedules.add(schedule);
+            return schedule;
+        });
+        serviceBusSender.setMaxSchedulesInFlight(2);
+
+        CompletableFuture<BatchSendResult> result = serviceBusSender.scheduleAtRateAsync(
+                Collections.nCopies(5, updateCaseMsg), Instant.parse("2020-01-01T10:00:00Z"), 10);
+
+        assertEquals(2, schedules.size());
+        schedules.get(0).complete(1L);
+        assertEquals(3, schedules.size());
+        for (int i = 1; i < 5; i++) {
+            schedules.get(i).complete(1L);
+        }
+        assertEquals(5, result.join().getSentMsgIds().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void scheduleAtRateRejectsZeroRate() {
+        serviceBusSender.scheduleAtRateAsync(Collections.singletonList(updateCaseMsg), Instant.now(), 0);
+    }
+
+    @Test
+    public void senderMetricsRecordSends() {
+        when(sendClient.getQueueName()).thenReturn("create-updates");
+        when(sendClient.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(sendClient.sendBatchAsync(any())).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+        ServiceBusSender sender = new ServiceBusSender(sendClient, new ObjectMapper());
+        SenderStats senderStats = new SenderStats();
+        sender.setSenderMetrics(senderStats);
+
+        sender.sendMessageAsync(updateCaseMsg).join();
+        sender.sendBatch(Arrays.asList(updateCaseMsg, updateCaseMsg));
+
+        SenderStats.Stats stats = senderStats.get("create-updates", "UpdateCaseMsg");
+        assertEquals(1, stats.getSent());
+        assertEquals(2, stats.getFailed());
+        assertEquals(2, stats.getTimedOut());
+        assertEquals(0, stats.getInFlightRequests());
+        assertEquals(0, stats.getInFlightMessages());
+        assertEquals(1, stats.getSendLatencyNanos().getCount());
+        assertEquals(2, stats.getBatchSize().getMax());
+        assertEquals(3, stats.getMessageBytes().getCount());
+    }
+
+    @Test
+    public void senderMetricsCountInFlightRequestsAndMessages() {
+        CompletableFuture<Void> send = new CompletableFuture<>();
+        CompletableFuture<Void> batchSend = new CompletableFuture<>();
+        when(sendClient.getQueueName()).thenReturn("create-updates");
+        when(sendClient.sendAsync(any())).thenReturn(send);
+        when(sendClient.sendBatchAsync(any())).thenReturn(batchSend);
+        ServiceBusSender sender = new ServiceBusSender(sendClient, new ObjectMapper());
+        SenderStats senderStats = new SenderStats();
+        sender.setSenderMetrics(senderStats);
+
+        CompletableFuture<Void> sent = sender.sendMessageAsync(updateCaseMsg);
+        CompletableFuture<BatchSendResult> batchSent = sender.sendBatchAsync(
+                Arrays.asList(updateCaseMsg, updateCaseMsg, updateCaseMsg));
+
+        SenderStats.Stats stats = senderStats.get("create-updates", "UpdateCaseMsg");
+        assertEquals(2, stats.getInFlightRequests());
+        assertEquals(4, stats.getInFlightMessages());
+        send.complete(null);
+        batchSend.complete(null);
+        sent.join();
+        batchSent.join();
+        assertEquals(0, stats.getInFlightRequests());
+        assertEquals(0, stats.getInFlightMessages());
+    }
+
+    @Test
+    public void senderMetricsRecordSendsThatFailWhenIssued() {
+        when(sendClient.getQueueName()).thenReturn("create-updates");
+        when(sendClient.sendAsync(any())).thenThrow(new IllegalStateException("closed"));
+        ServiceBusSender sender = new ServiceBusSender(sendClient, new ObjectMapper());
+        SenderStats senderStats = new SenderStats();
+        sender.setSenderMetrics(senderStats);
+
+        try {
+            sender.sendMessageAsync(updateCaseMsg);
+        } catch (IllegalStateException e) {
+            assertEquals("closed", e.getMessage());
+        }
+
+        SenderStats.Stats stats = senderStats.get("create-updates", "UpdateCaseMsg");
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getInFlightRequests());
+        assertEquals(1, stats.getSendLatencyNanos().getCount());
+    }
+
+    @Test
+    public void senderMetricsRecordSynchronousSendsThatFailUnexpectedly() throws Exception {
+        when(sendClient.getQueueName()).thenReturn("create-updates");
+        doThrow(new IllegalStateException("closed")).when(sendClient).send(any());
+        ServiceBusSender sender = new ServiceBusSender(sendClient, new ObjectMapper());
+        SenderStats senderStats = new SenderStats();
+        sender.setSenderMetrics(senderStats);
+
+        try {
+            sender.sendMessage(updateCaseMsg);
+            fail("Expected the send to fail");
+        } catch (IllegalStateException e) {
+            assertEquals("closed", e.getMessage());
+        }
+
+        SenderStats.Stats stats = senderStats.get("create-updates", "UpdateCaseMsg");
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getSent());
+        assertEquals(0, stats.getInFlightRequests());
+    }
+
+    @Test
+    public void mapToBusMessageSetsSessionId() {
+        serviceBusSender.setSessionIdKey(MessageKey.MULTIPLE_REF);
+        serviceBusSender.setPartitionKeyKey(MessageKey.ETHOS_CASE_REFERENCE);
+        Message busMessage = serviceBusSender.mapToBusMessage(updateCaseMsg);
+        assertEquals("4150001", busMessage.getSessionId());
+        assertNull(busMessage.getPartitionKey());
+    }
+
+    @Test
+    public void mapToBusMessageSetsPartitionKey() {
+        serviceBusSender.setPartitionKeyKey(MessageKey.ETHOS_CASE_REFERENCE);
+        Message busMessage = serviceBusSender.mapToBusMessage(updateCaseMsg);
+        assertEquals("4150002/2020", busMessage.getPartitionKey());
+        assertNull(busMessage.getSessionId());
+    }
+
+    @Test
+    public void mapToBusMessageCompressesLargeBody() throws JsonProcessingException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ServiceBusSender compressingSender = new ServiceBusSender(sendClient, jsonMapper, 10);
+        Message busMessage = compressingSender.mapToBusMessage(updateCaseMsg);
+        assertEquals(ServiceBusSender.GZIP_CONTENT_ENCODING,
+                busMessage.getProperties().get(ServiceBusSender.CONTENT_ENCODING_PROPERTY));
+        assertArrayEquals(jsonMapper.writeValueAsBytes(updateCaseMsg),
+                MessageBodyRetriever.getBinaryData(busMessage.getMessageBody()));
+        assertArrayEquals(jsonMapper.writeValueAsBytes(updateCaseMsg), MessageBodyRetriever.getBinaryData(busMessage));
+    }
+
+    @Test
+    public void mapToBusMessageDoesNotCompressSmallBody() throws JsonProcessingException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ServiceBusSender compressingSender = new ServiceBusSender(sendClient, jsonMapper, 64 * 1024);
+        Message busMessage = compressingSender.mapToBusMessage(updateCaseMsg);
+        assertNull(busMessage.getProperties().get(ServiceBusSender.CONTENT_ENCODING_PROPERTY));
+        assertArrayEquals(jsonMapper.writeValueAsBytes(updateCaseMsg),
+                MessageBodyRetriever.getBinaryData(busMessage.getMessageBody()));
+    }
+
 }
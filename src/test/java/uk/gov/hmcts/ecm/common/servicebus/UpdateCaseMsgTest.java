@@ -16,6 +16,8 @@ import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.PreAcceptDataModel;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.RejectDataModel;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.ResetStateDataModel;
 import uk.gov.hmcts.ecm.common.model.servicebus.datamodel.UpdateDataModel;
+import uk.gov.hmcts.ecm.common.model.servicebus.tasks.TaskBatchResult;
+import uk.gov.hmcts.ecm.common.model.servicebus.tasks.UpdateDataTask;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,6 +25,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.ACCEPTED_STATE;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.SUBMITTED_STATE;
 import static uk.gov.hmcts.ecm.common.model.helper.Constants.MULTIPLE_CASE_TYPE;
@@ -186,4 +189,35 @@ public class UpdateCaseMsgTest {
         assertEquals("RespondentName", submitEventDetailed
                 .getCaseData().getRepCollection().get(0).getValue().getRespRepName());
     }
+
+    @Test
+    public void runTaskBatchIsolatesFailures() {
+        CreationDataModel creationDataModel = ServiceBusHelper.getCreationDataModel("4150002/2020");
+        updateCaseMsg = ServiceBusHelper.generateUpdateCaseMsg(creationDataModel);
+        TaskBatchResult result = updateCaseMsg.runTask(Arrays.asList(submitEventAccepted, null, submitEventDetailed));
+        assertEquals(3, result.getCaseResults().size());
+        assertEquals(1, result.getFailures().size());
+        assertNull(result.getFailures().get(0).submitEvent());
+        assertEquals(MULTIPLE_CASE_TYPE, submitEventAccepted.getCaseData().getEcmCaseType());
+        assertEquals(MULTIPLE_CASE_TYPE, submitEventDetailed.getCaseData().getEcmCaseType());
+    }
+
+    @Test
+    public void compileUpdatePlanOnlySetFields() {
+        assertEquals(15, new UpdateDataTask(ServiceBusHelper.getUpdateDataModel()).compileUpdatePlan().size());
+        UpdateDataModel updateDataModel = UpdateDataModel.builder().clerkResponsible("ClerkResponsible").build();
+        UpdateDataTask.UpdatePlan updatePlan = new UpdateDataTask(updateDataModel).compileUpdatePlan();
+        assertEquals(1, updatePlan.size());
+        updatePlan.apply(submitEventAccepted.getCaseData());
+        assertEquals("ClerkResponsible", submitEventAccepted.getCaseData().getClerkResponsible());
+    }
+
+    @Test
+    public void runTaskBatchUpdate() {
+        updateCaseMsg = ServiceBusHelper.generateUpdateCaseMsg(ServiceBusHelper.getUpdateDataModel());
+        TaskBatchResult result = updateCaseMsg.runTask(Arrays.asList(submitEventAccepted, submitEventDetailed));
+        assertTrue(result.isSuccessful());
+        assertEquals("ManagingOffice", submitEventAccepted.getCaseData().getManagingOffice());
+        assertEquals("ManagingOffice", submitEventDetailed.getCaseData().getManagingOffice());
+    }
 }